@@ -0,0 +1,83 @@
+package edu.ncsu.csc411.ps06.bench;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Maps for the benchmarks: the paths of the public maps, and square
+ * synthetic maps of any size. A synthetic map is a walled room of blank
+ * tiles with a few interior walls, some chips, the robot in one corner
+ * and the goal behind its door in the other, so the robot always has a
+ * solution however large the map is.
+ */
+final class BenchMaps {
+  /** The public maps, as @Param values; run the benchmarks from the repository root. */
+  static final String PUBLIC = "maps/public/map01.txt,maps/public/map02.txt,maps/public/map03.txt,"
+      + "maps/public/map04.txt,maps/public/map05.txt,maps/public/map06.txt,maps/public/map07.txt,"
+      + "maps/public/map08.txt,maps/public/map09.txt,maps/public/map10.txt";
+
+  private static final int CHIPS = 8;
+
+  private BenchMaps() {
+  }
+
+  /**
+   * Builds a synthetic map in the text format of maps/.
+   * @param size - the width and height, at least 8
+   * @param seed - chooses where the walls and chips go
+   * @return the map text
+   */
+  static String synthetic(int size, long seed) {
+    Random random = new Random(seed);
+    String[][] cells = new String[size][size];
+    int[] gap = new int[size];
+    for (int col = 0; col < size; col++)
+      gap[col] = 1 + random.nextInt(size - 2);
+    for (int row = 0; row < size; row++) {
+      for (int col = 0; col < size; col++) {
+        boolean border = row == 0 || col == 0 || row == size - 1 || col == size - 1;
+        // Vertical walls every 4 columns, each with at least one gap
+        boolean interior = col % 4 == 0 && row != gap[col] && random.nextInt(8) != 0;
+        cells[row][col] = border || interior ? "WL" : "BL";
+      }
+    }
+    for (int chip = 0; chip < CHIPS; chip++) {
+      int row = 1 + random.nextInt(size - 2);
+      int col = 1 + random.nextInt(size - 2);
+      if (col % 4 == 0)
+        col = col == size - 2 ? col - 1 : col + 1;
+      cells[row][col] = "CH";
+    }
+    // Clear the corners so the start, door and goal are always connected
+    for (int i = 1; i <= 3; i++) {
+      cells[1][i] = "BL";
+      cells[size - 2][size - 1 - i] = "BL";
+    }
+    cells[1][1] = "ST";
+    cells[size - 2][size - 3] = "DP";
+    cells[size - 2][size - 2] = "PL";
+
+    StringBuilder text = new StringBuilder(size * size * 3);
+    for (String[] row : cells) {
+      text.append(String.join(" ", row)).append('\n');
+    }
+    return text.toString();
+  }
+
+  /**
+   * Writes a synthetic map to a temporary file, deleted on exit.
+   * @param size - the width and height
+   * @param seed - chooses where the walls and chips go
+   * @return the file
+   * @throws IOException if the file cannot be written
+   */
+  static Path writeSynthetic(int size, long seed) throws IOException {
+    Path file = Files.createTempFile("bench-" + size + "-", ".txt");
+    file.toFile().deleteOnExit();
+    Files.write(file, synthetic(size, seed).getBytes(StandardCharsets.US_ASCII));
+    return file;
+  }
+}
@@ -0,0 +1,60 @@
+package edu.ncsu.csc411.ps06.bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.ncsu.csc411.ps06.environment.Environment;
+import edu.ncsu.csc411.ps06.environment.MapTemplate;
+import edu.ncsu.csc411.ps06.utils.TextMapFormat;
+
+/**
+ * Time steps per second on synthetic maps of growing size: a whole
+ * updateEnvironment, which includes the Robot choosing its action, and
+ * the getNumRemainingChips query the agent and the goal check make every
+ * step. The Environment is reset whenever the robot finishes, so the
+ * measurement mixes planning from scratch with following a plan.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EnvironmentBenchmark {
+  @Param({ "32", "128", "512" })
+  public int size;
+
+  private Environment env;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    MapTemplate template = TextMapFormat.read(BenchMaps.writeSynthetic(this.size, 42));
+    this.env = new Environment(template);
+  }
+
+  @Benchmark
+  public boolean updateEnvironment() {
+    if (this.env.goalConditionMet())
+      this.env.reset();
+    this.env.updateEnvironment();
+    return this.env.goalConditionMet();
+  }
+
+  @Benchmark
+  public int getNumRemainingChips() {
+    return this.env.getNumRemainingChips();
+  }
+}
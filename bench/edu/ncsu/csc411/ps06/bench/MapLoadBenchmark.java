@@ -0,0 +1,89 @@
+package edu.ncsu.csc411.ps06.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.ncsu.csc411.ps06.environment.Environment;
+import edu.ncsu.csc411.ps06.environment.MapTemplate;
+import edu.ncsu.csc411.ps06.utils.BinaryMapFormat;
+import edu.ncsu.csc411.ps06.utils.MapManager;
+import edu.ncsu.csc411.ps06.utils.TextMapFormat;
+
+/**
+ * Loading a synthetic map of growing size each way the code can: the
+ * String[][] of MapManager.loadMap and its conversion to a template,
+ * the streaming TextMapFormat, the memory-mapped BinaryMapFormat in raw
+ * and run-length form, and building an Environment from a loaded
+ * template.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MapLoadBenchmark {
+  @Param({ "64", "256", "1024" })
+  public int size;
+
+  private Path text;
+  private Path raw;
+  private Path rle;
+  private MapTemplate template;
+
+  @Setup
+  public void setUp() throws IOException {
+    this.text = BenchMaps.writeSynthetic(this.size, 42);
+    this.template = TextMapFormat.read(this.text);
+    this.raw = Files.createTempFile("bench-" + this.size + "-", ".bin");
+    this.rle = Files.createTempFile("bench-" + this.size + "-rle-", ".bin");
+    this.raw.toFile().deleteOnExit();
+    this.rle.toFile().deleteOnExit();
+    BinaryMapFormat.write(this.template, this.raw, false);
+    BinaryMapFormat.write(this.template, this.rle, true);
+  }
+
+  @Benchmark
+  public String[][] loadMap() {
+    return MapManager.loadMap(this.text.toString());
+  }
+
+  @Benchmark
+  public MapTemplate loadMapAndParse() {
+    return MapTemplate.parse(MapManager.loadMap(this.text.toString()));
+  }
+
+  @Benchmark
+  public MapTemplate streamText() throws IOException {
+    return TextMapFormat.read(this.text);
+  }
+
+  @Benchmark
+  public MapTemplate binaryRaw() throws IOException {
+    return BinaryMapFormat.read(this.raw);
+  }
+
+  @Benchmark
+  public MapTemplate binaryRle() throws IOException {
+    return BinaryMapFormat.read(this.rle);
+  }
+
+  @Benchmark
+  public Environment environmentFromTemplate() {
+    return new Environment(this.template);
+  }
+}
@@ -0,0 +1,71 @@
+package edu.ncsu.csc411.ps06.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.ncsu.csc411.ps06.agent.DistanceFields;
+import edu.ncsu.csc411.ps06.agent.PathFinder;
+import edu.ncsu.csc411.ps06.environment.Action;
+import edu.ncsu.csc411.ps06.environment.Environment;
+import edu.ncsu.csc411.ps06.environment.TileStatus;
+import edu.ncsu.csc411.ps06.utils.MapManager;
+
+/**
+ * The searches behind Robot.planPath, from the robot's start to the goal
+ * of each public map: an A* search with PathFinder, and building the
+ * distance field to the goal that planPath descends instead. Doors
+ * are treated as open, so every map has a path.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PlanningBenchmark {
+  @Param({ BenchMaps.PUBLIC })
+  public String map;
+
+  private Environment env;
+  private PathFinder pathFinder;
+  private PathFinder.Passability passable;
+  private int start;
+  private int goal;
+  private final List<Action> path = new ArrayList<>();
+
+  @Setup
+  public void setUp() {
+    this.env = new Environment(MapManager.loadTemplate(this.map));
+    this.pathFinder = new PathFinder(this.env);
+    this.passable = cell -> {
+      TileStatus status = this.env.getTileStatus(cell);
+      return status != TileStatus.WALL && status != TileStatus.WATER;
+    };
+    this.start = this.env.getCellId(this.env.getRobotPosition(this.env.getRobots().get(0)));
+    this.goal = this.env.getCellId(this.env.getEnvironmentPositions().get(TileStatus.GOAL).get(0));
+  }
+
+  @Benchmark
+  public int aStar() {
+    this.pathFinder.findPath(this.start, this.goal, this.passable, this.path);
+    return this.path.size();
+  }
+
+  @Benchmark
+  public int[] distanceField() {
+    return new DistanceFields(this.env).get(this.goal);
+  }
+}
@@ -0,0 +1,52 @@
+package edu.ncsu.csc411.ps06.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.ncsu.csc411.ps06.simulation.RunSimulation;
+import edu.ncsu.csc411.ps06.simulation.SimulationConfig;
+import edu.ncsu.csc411.ps06.utils.LogLevel;
+import edu.ncsu.csc411.ps06.utils.MapManager;
+
+/**
+ * One whole trial of each public map, as the test cases run it: a new
+ * RunSimulation, with a new Environment and Robot, run until the goal or
+ * the step limit. The seed is fixed so every invocation makes the same
+ * moves, and the map is parsed once in setup, as MapManager caches it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class TrialBenchmark {
+  @Param({ BenchMaps.PUBLIC })
+  public String map;
+
+  private SimulationConfig config;
+
+  @Setup
+  public void setUp() {
+    MapManager.loadTemplate(this.map);
+    this.config = new SimulationConfig().withSeed(1).withLogLevel(LogLevel.OFF);
+  }
+
+  @Benchmark
+  public int trial() {
+    RunSimulation sim = new RunSimulation(this.map, this.config);
+    sim.run();
+    return sim.getStepsTaken();
+  }
+}
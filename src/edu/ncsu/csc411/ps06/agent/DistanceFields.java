@@ -0,0 +1,329 @@
+package edu.ncsu.csc411.ps06.agent;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.ncsu.csc411.ps06.environment.Action;
+import edu.ncsu.csc411.ps06.environment.Direction;
+import edu.ncsu.csc411.ps06.environment.Environment;
+import edu.ncsu.csc411.ps06.environment.TileStatus;
+
+/**
+ * Breadth-first distance fields over the terrain of one Environment. A
+ * field holds, for every cell, the number of moves to a source cell, so
+ * walking to the source is a descent down the field with no search.
+ *
+ * Walls, water and every door (colored or goal) block the fields. A
+ * blocked cell is still given the distance at which the search first
+ * touches it, so doors and items behind them can be used as
+ * destinations, but no field passes through one. Since walls and water
+ * never change, a field only ever changes when a door opens; update()
+ * notices this from the Environment's tile version and door counts and
+ * lowers the affected distances outward from the door instead of
+ * recomputing the fields.
+ *
+ * Fields are built on demand, the first time a source is asked about,
+ * and kept in a least-recently-used cache bounded by FIELD_BUDGET cells
+ * in total, so a map of 10^6 cells keeps a dozen or so fields however
+ * many chips it has. Callers that only need a path to a cell nothing has
+ * a field for should search for it with a PathFinder instead.
+ *
+ * Not thread-safe; each Robot owns its own DistanceFields.
+ */
+public class DistanceFields {
+  /** The distance between cells that cannot reach each other. */
+  public static final int UNREACHABLE = Integer.MAX_VALUE / 4;
+
+  // The cells of all cached fields together, about 64 MB of ints
+  private static final int FIELD_BUDGET = 1 << 24;
+  private static final int MIN_FIELDS = 4;
+  private static final int MAX_FIELDS = 256;
+
+  private final Environment env;
+  private final int cellCount;
+  private final int[][] adjacency;
+  private final int[] queue;
+
+  private final int capacity;
+  private final Map<Integer, int[]> fields;
+  // The array of the last field evicted, reused by the next build
+  private int[] spare;
+  private final int[] closedDoors;
+  private int closedDoorCount;
+  private int tileVersion;
+  private int version;
+  private int builds;
+  private long buildNanos;
+
+  /**
+   * Builds an empty set of fields over the Environment's terrain. No field
+   * is built until one is asked for.
+   * @param env - the Environment whose terrain is searched
+   */
+  public DistanceFields(Environment env) {
+    this(env, capacityFor(env.getCellCount()));
+  }
+
+  /**
+   * Builds an empty set of fields that caches at most capacity of them,
+   * so tests can run a small map under the pressure of a large one.
+   * @param env - the Environment whose terrain is searched
+   * @param capacity - the number of fields to cache, at least 1
+   */
+  DistanceFields(Environment env, int capacity) {
+    if (capacity < 1)
+      throw new IllegalArgumentException("capacity must be at least 1: " + capacity);
+    this.env = env;
+    this.cellCount = env.getCellCount();
+    this.adjacency = env.getAdjacency();
+    this.queue = new int[this.cellCount];
+    this.capacity = capacity;
+    this.fields = new LinkedHashMap<Integer, int[]>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Integer, int[]> eldest) {
+        if (size() <= DistanceFields.this.capacity)
+          return false;
+        spare = eldest.getValue();
+        return true;
+      }
+    };
+    int[] doors = new int[this.cellCount];
+    for (int cell = 0; cell < this.cellCount; cell++) {
+      if (isDoor(env.getTileStatus(cell)))
+        doors[this.closedDoorCount++] = cell;
+    }
+    this.closedDoors = Arrays.copyOf(doors, this.closedDoorCount);
+    this.tileVersion = env.getTileVersion();
+  }
+
+  /**
+   * Returns the most memory the cached fields of a map can take, so that
+   * callers running many maps at once can tell how many fit in the heap.
+   * @param cellCount - the number of cells of the map
+   * @return the size of every field the cache can hold, in bytes
+   */
+  public static long maxBytes(int cellCount) {
+    return (long) Integer.BYTES * capacityFor(cellCount) * cellCount;
+  }
+
+  private static int capacityFor(int cellCount) {
+    return Math.max(MIN_FIELDS, Math.min(MAX_FIELDS, FIELD_BUDGET / cellCount));
+  }
+
+  /**
+   * Returns true if the cell is a chip, key, door or the goal.
+   * @param status - the status of a cell
+   * @return true for the statuses planners walk to most often
+   */
+  public static boolean isPointOfInterest(TileStatus status) {
+    switch (status) {
+      case CHIP: case GOAL: case DOOR_GOAL:
+      case KEY_BLUE: case KEY_GREEN: case KEY_RED: case KEY_YELLOW:
+      case DOOR_BLUE: case DOOR_GREEN: case DOOR_RED: case DOOR_YELLOW:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Returns true for colored doors and the goal door.
+   * @param status - the status of a cell
+   * @return true for door statuses
+   */
+  public static boolean isDoor(TileStatus status) {
+    switch (status) {
+      case DOOR_GOAL:
+      case DOOR_BLUE: case DOOR_GREEN: case DOOR_RED: case DOOR_YELLOW:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Returns true if the fields walk through the given status.
+   * @param status - the status of a cell
+   * @return false for walls, water and doors
+   */
+  public static boolean isOpen(TileStatus status) {
+    switch (status) {
+      case WALL: case WATER:
+        return false;
+      default:
+        return !isDoor(status);
+    }
+  }
+
+  /**
+   * Returns the distance field to a cell, building it if it is not
+   * cached. The array is owned by this object and must not be modified.
+   * It is only valid until the next call to get(), distance() or
+   * descend(): any of them may evict it and refill the same array with
+   * the field of another source, so read what is needed from it first
+   * and never keep it.
+   * @param source - a cell id
+   * @return the distance from every cell to source
+   */
+  public int[] get(int source) {
+    int[] field = this.fields.get(source);
+    if (field == null) {
+      field = build(source);
+      this.fields.put(source, field);
+    }
+    return field;
+  }
+
+  /**
+   * Returns true if the field of a cell is cached, so get() costs nothing.
+   * @param cell - a cell id
+   * @return true if the field is cached
+   */
+  public boolean hasField(int cell) {
+    return this.fields.containsKey(cell);
+  }
+
+  /**
+   * Returns the walking distance between two cells.
+   * @param from - a cell id
+   * @param to - a cell id
+   * @return the number of moves, or UNREACHABLE
+   */
+  public int distance(int from, int to) {
+    return get(from)[to];
+  }
+
+  /**
+   * Fills out with the moves from start down the field of goal.
+   * @param start - the cell id to walk from
+   * @param goal - the cell id to walk to
+   * @param out - cleared and filled with the moves on success
+   * @return false if goal cannot be reached from start
+   */
+  public boolean descend(int start, int goal, List<Action> out) {
+    int[] field = get(goal);
+    if (field[start] >= UNREACHABLE)
+      return false;
+    out.clear();
+    for (int cell = start; cell != goal; ) {
+      int[] adjacent = this.adjacency[cell];
+      int next = Environment.NO_CELL;
+      for (int d = 0; d < Direction.COUNT && next == Environment.NO_CELL; d++) {
+        int neighbor = adjacent[d];
+        if (neighbor != Environment.NO_CELL && field[neighbor] == field[cell] - 1
+            && (neighbor == goal || isOpen(this.env.getTileStatus(neighbor)))) {
+          next = neighbor;
+          out.add(Direction.get(d).getAction());
+        }
+      }
+      cell = next;
+    }
+    return true;
+  }
+
+  /**
+   * Brings the fields up to date with the Environment. This is a single
+   * version check unless a tile has changed since the last call. Doors are
+   * the only cells whose openness changes, so when one has opened every
+   * field is relaxed outward from that door alone, since distances can
+   * only drop.
+   * @return true if any door opened
+   */
+  public boolean update() {
+    if (this.tileVersion == this.env.getTileVersion())
+      return false;
+    this.tileVersion = this.env.getTileVersion();
+    int doors = this.env.getTileCount(TileStatus.DOOR_GOAL)
+        + this.env.getTileCount(TileStatus.DOOR_BLUE) + this.env.getTileCount(TileStatus.DOOR_GREEN)
+        + this.env.getTileCount(TileStatus.DOOR_RED) + this.env.getTileCount(TileStatus.DOOR_YELLOW);
+    if (doors == this.closedDoorCount)
+      return false;
+    for (int i = this.closedDoorCount - 1; i >= 0; i--) {
+      int cell = this.closedDoors[i];
+      if (isDoor(this.env.getTileStatus(cell)))
+        continue;
+      this.closedDoors[i] = this.closedDoors[--this.closedDoorCount];
+      for (int[] field : this.fields.values())
+        relax(field, cell);
+    }
+    this.version++;
+    return true;
+  }
+
+  /** @return the number of doors that are still closed */
+  public int getClosedDoorCount() {
+    return this.closedDoorCount;
+  }
+
+  /**
+   * @param index - 0 to getClosedDoorCount() - 1
+   * @return the cell id of a closed door
+   */
+  public int getClosedDoor(int index) {
+    return this.closedDoors[index];
+  }
+
+  /** @return the number of fields kept before the least recently used is evicted */
+  public int getCapacity() {
+    return this.capacity;
+  }
+
+  /** @return a counter that changes whenever any field changes */
+  public int getVersion() {
+    return this.version;
+  }
+
+  /* The number of fields built so far, for tests to check the cache holds. */
+  int getBuildCount() {
+    return this.builds;
+  }
+
+  /* The time spent building them, in nanoseconds. */
+  long getBuildNanos() {
+    return this.buildNanos;
+  }
+
+  private int[] build(int source) {
+    long start = System.nanoTime();
+    this.builds++;
+    int[] field = this.spare != null ? this.spare : new int[this.cellCount];
+    this.spare = null;
+    Arrays.fill(field, UNREACHABLE);
+    field[source] = 0;
+    this.queue[0] = source;
+    spread(field, 1);
+    this.buildNanos += System.nanoTime() - start;
+    return field;
+  }
+
+  private void relax(int[] field, int cell) {
+    // A door nothing had touched stays cut off
+    if (field[cell] >= UNREACHABLE)
+      return;
+    this.queue[0] = cell;
+    spread(field, 1);
+  }
+
+  /* Breadth-first lowering from the cells already in the queue. */
+  private void spread(int[] field, int tail) {
+    int head = 0;
+    while (head < tail) {
+      int cell = this.queue[head++];
+      int next = field[cell] + 1;
+      int[] adjacent = this.adjacency[cell];
+      for (int d = 0; d < Direction.COUNT; d++) {
+        int neighbor = adjacent[d];
+        if (neighbor == Environment.NO_CELL || field[neighbor] <= next)
+          continue;
+        // Blocked cells are touched but never walked through
+        field[neighbor] = next;
+        if (isOpen(this.env.getTileStatus(neighbor)))
+          this.queue[tail++] = neighbor;
+      }
+    }
+  }
+}
@@ -0,0 +1,232 @@
+package edu.ncsu.csc411.ps06.agent;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import edu.ncsu.csc411.ps06.environment.Action;
+import edu.ncsu.csc411.ps06.environment.Direction;
+import edu.ncsu.csc411.ps06.environment.Environment;
+import edu.ncsu.csc411.ps06.utils.CancellationToken;
+
+/**
+ * A reusable A* search over the cell ids of one Environment. All of the
+ * search state lives in primitive arrays sized to the map and allocated
+ * once, so a search does not allocate per expanded node.
+ *
+ * Instead of clearing its arrays between searches, the engine stamps each
+ * cell with the generation of the search that last touched it; a cell
+ * whose stamp is older than the current generation is treated as unseen.
+ * The open set is a binary heap of cell ids with an index back into the
+ * heap, so improving a cell's score is a sift-up rather than a linear
+ * remove.
+ *
+ * Not thread-safe; each Robot owns its own PathFinder.
+ */
+public class PathFinder {
+  /** Decides whether the search may step onto a cell. */
+  public interface Passability {
+    /**
+     * @param cell - a cell id
+     * @return true if the cell can be entered
+     */
+    boolean isPassable(int cell);
+  }
+
+  // Poll the cancellation token once every this many + 1 expansions
+  private static final int CANCEL_CHECK_MASK = 1023;
+
+  private final int cols;
+  private final int[][] adjacency;
+
+  // Per-cell search state, valid only where seen[cell] == generation
+  private final int[] seen;
+  private final int[] closed;
+  private final int[] gScore;
+  private final int[] fScore;
+  private final byte[] entryDirection;
+
+  // Binary min-heap of cell ids ordered by fScore, then by larger gScore
+  private final int[] heap;
+  private final int[] heapIndex;
+  private int heapSize;
+
+  private int generation;
+  private int nodesExpanded;
+  private CancellationToken cancellation;
+
+  /**
+   * Builds a PathFinder sized for the given Environment.
+   * @param env - the Environment whose cells will be searched
+   */
+  public PathFinder(Environment env) {
+    int cells = env.getCellCount();
+    this.cols = env.getCols();
+    this.adjacency = env.getAdjacency();
+    this.seen = new int[cells];
+    this.closed = new int[cells];
+    this.gScore = new int[cells];
+    this.fScore = new int[cells];
+    this.entryDirection = new byte[cells];
+    this.heap = new int[cells];
+    this.heapIndex = new int[cells];
+  }
+
+  /**
+   * Sets a token that is polled while searching; once it is cancelled,
+   * findPath gives up and reports no path.
+   * @param cancellation - the token, or null to never give up
+   */
+  public void setCancellationToken(CancellationToken cancellation) {
+    this.cancellation = cancellation;
+  }
+
+  /**
+   * Searches for a shortest path from start to goal. On success, out is
+   * cleared and filled with the moves along the path; on failure it is
+   * left untouched.
+   * @param start - the starting cell id
+   * @param goal - the cell id to reach
+   * @param passable - decides which cells may be entered
+   * @param out - receives the path's actions
+   * @return true if a path was found
+   */
+  public boolean findPath(int start, int goal, Passability passable, List<Action> out) {
+    nextGeneration();
+    this.nodesExpanded = 0;
+    this.heapSize = 0;
+    int goalRow = goal / this.cols;
+    int goalCol = goal % this.cols;
+
+    this.seen[start] = this.generation;
+    this.gScore[start] = 0;
+    this.fScore[start] = estimate(start, goalRow, goalCol);
+    push(start);
+
+    while (this.heapSize > 0) {
+      int current = pop();
+      if (current == goal) {
+        reconstruct(start, goal, out);
+        return true;
+      }
+      this.closed[current] = this.generation;
+      if ((++this.nodesExpanded & CANCEL_CHECK_MASK) == 0 && isCancelled())
+        return false;
+
+      int[] adjacent = this.adjacency[current];
+      int tentative = this.gScore[current] + 1;
+      for (int d = 0; d < Direction.COUNT; d++) {
+        int neighbor = adjacent[d];
+        if (neighbor == Environment.NO_CELL || this.closed[neighbor] == this.generation)
+          continue;
+        boolean known = this.seen[neighbor] == this.generation;
+        if (known && tentative >= this.gScore[neighbor])
+          continue;
+        if (!known && !passable.isPassable(neighbor))
+          continue;
+
+        this.gScore[neighbor] = tentative;
+        this.fScore[neighbor] = tentative + estimate(neighbor, goalRow, goalCol);
+        this.entryDirection[neighbor] = (byte) d;
+        if (known) {
+          siftUp(this.heapIndex[neighbor]);
+        } else {
+          this.seen[neighbor] = this.generation;
+          push(neighbor);
+        }
+      }
+    }
+    return false;
+  }
+
+  /** @return the number of cells expanded by the most recent search */
+  public int getNodesExpanded() {
+    return this.nodesExpanded;
+  }
+
+  private boolean isCancelled() {
+    return this.cancellation != null && this.cancellation.isCancelled();
+  }
+
+  private int estimate(int cell, int goalRow, int goalCol) {
+    return Math.abs(cell / this.cols - goalRow) + Math.abs(cell % this.cols - goalCol);
+  }
+
+  /* Walks back from the goal along the entry directions. */
+  private void reconstruct(int start, int goal, List<Action> out) {
+    out.clear();
+    for (int cell = goal; cell != start; ) {
+      Direction direction = Direction.get(this.entryDirection[cell]);
+      out.add(direction.getAction());
+      cell -= direction.getRowOffset() * this.cols + direction.getColOffset();
+    }
+    Collections.reverse(out);
+  }
+
+  /* Starts a new search, wiping the stamps only if the counter wraps. */
+  private void nextGeneration() {
+    if (this.generation == Integer.MAX_VALUE) {
+      Arrays.fill(this.seen, 0);
+      Arrays.fill(this.closed, 0);
+      this.generation = 0;
+    }
+    this.generation++;
+  }
+
+  private boolean before(int a, int b) {
+    if (this.fScore[a] != this.fScore[b])
+      return this.fScore[a] < this.fScore[b];
+    // Prefer the deeper node on ties; it is closer to the goal
+    return this.gScore[a] > this.gScore[b];
+  }
+
+  private void push(int cell) {
+    this.heap[this.heapSize] = cell;
+    this.heapIndex[cell] = this.heapSize;
+    siftUp(this.heapSize++);
+  }
+
+  private int pop() {
+    int top = this.heap[0];
+    int last = this.heap[--this.heapSize];
+    if (this.heapSize > 0) {
+      this.heap[0] = last;
+      this.heapIndex[last] = 0;
+      siftDown(0);
+    }
+    return top;
+  }
+
+  private void siftUp(int index) {
+    int cell = this.heap[index];
+    while (index > 0) {
+      int parentIndex = (index - 1) >>> 1;
+      int parent = this.heap[parentIndex];
+      if (!before(cell, parent))
+        break;
+      this.heap[index] = parent;
+      this.heapIndex[parent] = index;
+      index = parentIndex;
+    }
+    this.heap[index] = cell;
+    this.heapIndex[cell] = index;
+  }
+
+  private void siftDown(int index) {
+    int cell = this.heap[index];
+    int half = this.heapSize >>> 1;
+    while (index < half) {
+      int child = 2 * index + 1;
+      int right = child + 1;
+      if (right < this.heapSize && before(this.heap[right], this.heap[child]))
+        child = right;
+      if (!before(this.heap[child], cell))
+        break;
+      this.heap[index] = this.heap[child];
+      this.heapIndex[this.heap[index]] = index;
+      index = child;
+    }
+    this.heap[index] = cell;
+    this.heapIndex[cell] = index;
+  }
+}
@@ -0,0 +1,479 @@
+package edu.ncsu.csc411.ps06.agent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import edu.ncsu.csc411.ps06.environment.Action;
+import edu.ncsu.csc411.ps06.environment.Direction;
+import edu.ncsu.csc411.ps06.environment.Environment;
+import edu.ncsu.csc411.ps06.environment.Inventory;
+import edu.ncsu.csc411.ps06.environment.TileStatus;
+import edu.ncsu.csc411.ps06.utils.CancellationToken;
+
+/**
+ * Solves a whole map up front and returns the complete list of moves
+ * from the robot's starting cell to the portal.
+ *
+ * Every chip, key, colored door and portal door is an "item". The search
+ * state is the item the robot is standing on plus a bitmask of the items
+ * already collected or opened; the keys held and the chips remaining both
+ * follow from that mask. From a state, a breadth-first search over the
+ * grid finds every uncollected item that can be reached without walking
+ * over another one, and each of those becomes a successor. The states
+ * are explored in weighted A* order: moves so far plus WEIGHT times a
+ * lower bound on the moves left. The bound is a minimum spanning tree
+ * over the remaining chips and the portal, measured on the bare terrain
+ * with every door open; those point-of-interest distances are computed
+ * once per solve and memoized. Weighting the bound trades optimality for
+ * far fewer states on maps with many keys: the plan returned is at most
+ * WEIGHT times longer than the shortest one this model allows.
+ *
+ * The model follows Environment.updateEnvironment: an item is only
+ * removed at the end of the tick in which the robot leaves its cell. A
+ * door right next to the item that unlocks it therefore needs one extra
+ * DO_NOTHING before stepping onto it, and the solver adds that wait.
+ *
+ * The search gives up and returns null when the map has more items than
+ * fit in the mask or when it exceeds its work budget, so callers must be
+ * ready to fall back to step-by-step planning.
+ */
+public class PuzzleSolver {
+  /** The most items a map may have for the solver to attempt it. */
+  public static final int MAX_ITEMS = 56;
+
+  /** How much the lower bound is trusted over the moves already made. */
+  public static final int WEIGHT = 2;
+
+  // Poll the cancellation token once every this many + 1 states
+  private static final int CANCEL_CHECK_MASK = 15;
+
+  private static final int NODE_BITS = 7;
+  private static final int NODE_MASK = (1 << NODE_BITS) - 1;
+
+  private final int cols;
+  private final int[][] adjacency;
+  private final TileStatus[] tiles;
+  private final int goalCell;
+
+  // Items by index, and the index of the item on each cell (or -1)
+  private final int[] itemCells;
+  private final TileStatus[] itemStatus;
+  private final int[] itemIndex;
+  private final long chipMask;
+  private final long[] keyMask = new long[Inventory.KEYS.length];
+  private final long[] doorMask = new long[Inventory.KEYS.length];
+
+  // Reused breadth-first search state
+  private final int[] distance;
+  private final int[] seen;
+  private final int[] queue;
+  private final byte[] entryDirection;
+  private int generation;
+
+  // Terrain-only distances: chipBound[i][node] from chip item i to a node,
+  // goalBound[node] from a node to the portal. Node items.length is the
+  // start cell and node items.length + 1 is the portal.
+  private int[][] chipBound;
+  private int[] goalBound;
+  private int[] mstChips;
+  private int[] mstLink;
+
+  private int maxStates = 100000;
+  private long maxCellVisits = 50000000L;
+  private long cellVisits;
+  private int statesExpanded;
+  private CancellationToken cancellation;
+
+  /**
+   * Takes a snapshot of the Environment's tiles to solve against.
+   * @param env - the Environment to solve
+   */
+  public PuzzleSolver(Environment env) {
+    int cells = env.getCellCount();
+    this.cols = env.getCols();
+    this.adjacency = env.getAdjacency();
+    this.tiles = new TileStatus[cells];
+    this.itemIndex = new int[cells];
+
+    List<Integer> items = new ArrayList<>();
+    int goal = Environment.NO_CELL;
+    for (int cell = 0; cell < cells; cell++) {
+      TileStatus status = env.getTileStatus(cell);
+      this.tiles[cell] = status;
+      this.itemIndex[cell] = -1;
+      if (status == TileStatus.GOAL) {
+        goal = cell;
+      } else if (isItem(status)) {
+        this.itemIndex[cell] = items.size();
+        items.add(cell);
+      }
+    }
+    this.goalCell = goal;
+
+    this.itemCells = new int[items.size()];
+    this.itemStatus = new TileStatus[items.size()];
+    long chips = 0;
+    for (int i = 0; i < this.itemCells.length; i++) {
+      this.itemCells[i] = items.get(i);
+      this.itemStatus[i] = this.tiles[this.itemCells[i]];
+      if (i >= MAX_ITEMS)
+        continue;
+      TileStatus status = this.itemStatus[i];
+      int slot = Inventory.slotOf(status);
+      if (status == TileStatus.CHIP) {
+        chips |= 1L << i;
+      } else if (slot >= 0 && isKey(status)) {
+        this.keyMask[slot] |= 1L << i;
+      } else if (slot >= 0) {
+        this.doorMask[slot] |= 1L << i;
+      }
+    }
+    this.chipMask = chips;
+
+    this.distance = new int[cells];
+    this.seen = new int[cells];
+    this.queue = new int[cells];
+    this.entryDirection = new byte[cells];
+  }
+
+  /**
+   * Limits how much work solve may do before giving up.
+   * @param maxStates - the most search states to expand
+   * @param maxCellVisits - the most grid cells to visit across all searches
+   */
+  public void setBudget(int maxStates, long maxCellVisits) {
+    this.maxStates = maxStates;
+    this.maxCellVisits = maxCellVisits;
+  }
+
+  /**
+   * Sets a token that is polled while solving; once it is cancelled,
+   * solve gives up and returns null.
+   * @param cancellation - the token, or null to never give up
+   */
+  public void setCancellationToken(CancellationToken cancellation) {
+    this.cancellation = cancellation;
+  }
+
+  /** @return the number of search states expanded by the last solve */
+  public int getStatesExpanded() {
+    return this.statesExpanded;
+  }
+
+  /**
+   * Finds a sequence of actions that collects every chip and reaches the
+   * portal from the given cell. The search is weighted, so the plan is at
+   * most WEIGHT times longer than the shortest one.
+   * @param startCell - the robot's cell id
+   * @return the actions in order, or null if no plan was found in budget
+   */
+  public List<Action> solve(int startCell) {
+    this.cellVisits = 0;
+    this.statesExpanded = 0;
+    int items = this.itemCells.length;
+    if (this.goalCell == Environment.NO_CELL || items > MAX_ITEMS)
+      return null;
+
+    // Node ids: 0..items-1 stand on an item, items is the start cell
+    int startNode = items;
+    long startKey = key(startNode, 0L);
+    computeBounds(startCell);
+    if (estimate(startNode, 0L) == Integer.MAX_VALUE)
+      return null;
+
+    // Open entries are { g + WEIGHT * h, g, state }, lowest first, deepest on ties
+    Map<Long, Integer> best = new HashMap<>();
+    Map<Long, Long> parent = new HashMap<>();
+    PriorityQueue<long[]> open = new PriorityQueue<>((a, b) -> a[0] != b[0]
+        ? Long.compare(a[0], b[0]) : Long.compare(b[1], a[1]));
+    best.put(startKey, 0);
+    open.add(new long[] { WEIGHT * estimate(startNode, 0L), 0, startKey });
+
+    long goalParent = -1;
+    int goalCost = Integer.MAX_VALUE;
+
+    while (!open.isEmpty()) {
+      long[] entry = open.poll();
+      if (entry[0] >= goalCost)
+        break;
+      int cost = (int) entry[1];
+      long state = entry[2];
+      if (cost > best.get(state))
+        continue;
+      if (++this.statesExpanded > this.maxStates || this.cellVisits > this.maxCellVisits)
+        return null;
+      if ((this.statesExpanded & CANCEL_CHECK_MASK) == 0 && this.cancellation != null
+          && this.cancellation.isCancelled())
+        return null;
+
+      int node = (int) (state & NODE_MASK);
+      long mask = state >>> NODE_BITS;
+      int from = node == startNode ? startCell : this.itemCells[node];
+      explore(from, mask);
+
+      // The portal itself ends the search once every chip is collected
+      if ((this.chipMask & ~mask) == 0 && this.seen[this.goalCell] == this.generation) {
+        int total = cost + this.distance[this.goalCell];
+        if (total < goalCost) {
+          goalCost = total;
+          goalParent = state;
+        }
+      }
+
+      for (int i = 0; i < items; i++) {
+        int cell = this.itemCells[i];
+        if ((mask & (1L << i)) != 0 || this.seen[cell] != this.generation)
+          continue;
+        int steps = this.distance[cell];
+        int wait = entryWait(node == startNode ? -1 : node, mask, i, steps);
+        if (wait < 0 || opensNothing(i, mask))
+          continue;
+        long nextMask = mask | (1L << i);
+        int bound = estimate(i, nextMask);
+        if (bound == Integer.MAX_VALUE)
+          continue;
+        long next = key(i, nextMask);
+        int nextCost = cost + steps + wait;
+        Integer known = best.get(next);
+        if (known == null || nextCost < known) {
+          best.put(next, nextCost);
+          parent.put(next, state);
+          open.add(new long[] { nextCost + WEIGHT * bound, nextCost, next });
+        }
+      }
+    }
+
+    if (goalParent < 0)
+      return null;
+
+    // Rebuild the chain of states, then walk each leg on the grid again
+    List<Long> chain = new ArrayList<>();
+    for (long state = goalParent; state != startKey; state = parent.get(state)) {
+      chain.add(state);
+    }
+    chain.add(startKey);
+    Collections.reverse(chain);
+
+    List<Action> plan = new ArrayList<>();
+    for (int s = 0; s < chain.size(); s++) {
+      long state = chain.get(s);
+      int node = (int) (state & NODE_MASK);
+      long mask = state >>> NODE_BITS;
+      int from = node == startNode ? startCell : this.itemCells[node];
+      explore(from, mask);
+      if (s + 1 < chain.size()) {
+        int target = (int) (chain.get(s + 1) & NODE_MASK);
+        int cell = this.itemCells[target];
+        int wait = entryWait(node == startNode ? -1 : node, mask, target, this.distance[cell]);
+        for (int w = 0; w < wait; w++) {
+          plan.add(Action.DO_NOTHING);
+        }
+        appendPath(from, cell, plan);
+      } else {
+        appendPath(from, this.goalCell, plan);
+      }
+    }
+    return plan;
+  }
+
+  /*
+   * A lower bound on the moves left from a node: the route still has to
+   * pass through every remaining chip and end at the portal, so it is a
+   * spanning tree of those points and can be no shorter than their minimum
+   * spanning tree under terrain-only distances. Returns Integer.MAX_VALUE
+   * for a dead end.
+   */
+  private int estimate(int node, long mask) {
+    long remaining = this.chipMask & ~mask;
+    if (remaining == 0)
+      return this.goalBound[node];
+
+    // Prim's algorithm over { node, remaining chips, portal }
+    int goalNode = this.itemCells.length + 1;
+    int count = 0;
+    int[] chips = this.mstChips;
+    int[] link = this.mstLink;
+    while (remaining != 0) {
+      int chip = Long.numberOfTrailingZeros(remaining);
+      remaining &= remaining - 1;
+      chips[count] = chip;
+      link[count] = this.chipBound[chip][node];
+      count++;
+    }
+    chips[count] = -1;
+    link[count] = this.goalBound[node];
+    count++;
+
+    int total = 0;
+    for (int added = 0; added < count; added++) {
+      int nearest = -1;
+      for (int j = 0; j < count; j++) {
+        if (link[j] >= 0 && (nearest < 0 || link[j] < link[nearest]))
+          nearest = j;
+      }
+      if (link[nearest] == Integer.MAX_VALUE)
+        return Integer.MAX_VALUE;
+      total += link[nearest];
+      link[nearest] = -1;
+      int joined = chips[nearest];
+      for (int j = 0; j < count; j++) {
+        if (link[j] < 0)
+          continue;
+        int d = joined < 0 ? this.chipBound[chips[j]][goalNode]
+            : chips[j] < 0 ? this.chipBound[joined][goalNode]
+            : this.chipBound[joined][chips[j]];
+        if (d < link[j])
+          link[j] = d;
+      }
+    }
+    return total;
+  }
+
+  /* Fills chipBound and goalBound with one terrain search per chip. */
+  private void computeBounds(int startCell) {
+    int items = this.itemCells.length;
+    int[] nodeCells = Arrays.copyOf(this.itemCells, items + 2);
+    nodeCells[items] = startCell;
+    nodeCells[items + 1] = this.goalCell;
+
+    this.chipBound = new int[items][];
+    for (int i = 0; i < items; i++) {
+      if (this.itemStatus[i] == TileStatus.CHIP) {
+        this.chipBound[i] = terrainDistances(this.itemCells[i], nodeCells);
+      }
+    }
+    this.goalBound = terrainDistances(this.goalCell, nodeCells);
+    this.mstChips = new int[items + 1];
+    this.mstLink = new int[items + 1];
+  }
+
+  private int[] terrainDistances(int from, int[] nodeCells) {
+    explore(from, -1L);
+    int[] result = new int[nodeCells.length];
+    for (int n = 0; n < nodeCells.length; n++) {
+      int cell = nodeCells[n];
+      result[n] = this.seen[cell] == this.generation ? this.distance[cell] : Integer.MAX_VALUE;
+    }
+    return result;
+  }
+
+  /*
+   * True for a colored door whose every open side is already walkable
+   * from the robot's region, as found by the last explore(). Such a door
+   * could only be a shortcut, and opening it spends a key that may be
+   * needed elsewhere, so the search does not consider it.
+   */
+  private boolean opensNothing(int item, long mask) {
+    TileStatus status = this.itemStatus[item];
+    if (isKey(status) || Inventory.slotOf(status) < 0)
+      return false;
+    int[] adjacent = this.adjacency[this.itemCells[item]];
+    for (int d = 0; d < Direction.COUNT; d++) {
+      int next = adjacent[d];
+      if (next == Environment.NO_CELL)
+        continue;
+      TileStatus terrain = this.tiles[next];
+      if (terrain == TileStatus.WALL || terrain == TileStatus.WATER)
+        continue;
+      if (this.seen[next] != this.generation || isBlocking(next, mask))
+        return false;
+    }
+    return true;
+  }
+
+  /*
+   * Returns how many ticks to wait before walking to item target, or -1
+   * if it cannot be entered. The item just left is only removed at the
+   * end of the first step, so when the target is one step away its entry
+   * check still sees the old inventory and chip count.
+   */
+  private int entryWait(int leaving, long mask, int target, int steps) {
+    if (!canEnter(mask, target))
+      return -1;
+    if (steps == 1 && leaving >= 0 && !canEnter(mask & ~(1L << leaving), target))
+      return 1;
+    return 0;
+  }
+
+  private boolean canEnter(long mask, int item) {
+    TileStatus status = this.itemStatus[item];
+    if (status == TileStatus.DOOR_GOAL)
+      return (this.chipMask & ~mask) == 0;
+    int slot = Inventory.slotOf(status);
+    if (slot < 0 || isKey(status))
+      return true;
+    int held = Long.bitCount(mask & this.keyMask[slot]) - Long.bitCount(mask & this.doorMask[slot]);
+    return held > 0;
+  }
+
+  /*
+   * Breadth-first search from a cell. Uncollected items are reached but
+   * not walked through; collected ones are plain floor. A mask of all
+   * ones searches the bare terrain.
+   */
+  private void explore(int from, long mask) {
+    if (++this.generation == Integer.MAX_VALUE) {
+      Arrays.fill(this.seen, 0);
+      this.generation = 1;
+    }
+    int head = 0;
+    int tail = 0;
+    this.queue[tail++] = from;
+    this.seen[from] = this.generation;
+    this.distance[from] = 0;
+    while (head < tail) {
+      int cell = this.queue[head++];
+      this.cellVisits++;
+      if (cell != from && isBlocking(cell, mask))
+        continue;
+      int[] adjacent = this.adjacency[cell];
+      for (int d = 0; d < Direction.COUNT; d++) {
+        int next = adjacent[d];
+        if (next == Environment.NO_CELL || this.seen[next] == this.generation)
+          continue;
+        TileStatus status = this.tiles[next];
+        if (status == TileStatus.WALL || status == TileStatus.WATER)
+          continue;
+        this.seen[next] = this.generation;
+        this.distance[next] = this.distance[cell] + 1;
+        this.entryDirection[next] = (byte) d;
+        this.queue[tail++] = next;
+      }
+    }
+  }
+
+  private boolean isBlocking(int cell, long mask) {
+    int item = this.itemIndex[cell];
+    return item >= 0 && (mask & (1L << item)) == 0;
+  }
+
+  /* Appends the moves of the last explore() from one cell to another. */
+  private void appendPath(int from, int to, List<Action> plan) {
+    int start = plan.size();
+    for (int cell = to; cell != from; ) {
+      Direction direction = Direction.get(this.entryDirection[cell]);
+      plan.add(direction.getAction());
+      cell -= direction.getRowOffset() * this.cols + direction.getColOffset();
+    }
+    Collections.reverse(plan.subList(start, plan.size()));
+  }
+
+  private static long key(int node, long mask) {
+    return (mask << NODE_BITS) | node;
+  }
+
+  private static boolean isKey(TileStatus status) {
+    return status == TileStatus.KEY_BLUE || status == TileStatus.KEY_GREEN
+        || status == TileStatus.KEY_RED || status == TileStatus.KEY_YELLOW;
+  }
+
+  private static boolean isItem(TileStatus status) {
+    return status == TileStatus.CHIP || status == TileStatus.DOOR_GOAL
+        || Inventory.slotOf(status) >= 0;
+  }
+}
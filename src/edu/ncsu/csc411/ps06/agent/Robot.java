@@ -1,20 +1,25 @@
 package edu.ncsu.csc411.ps06.agent;
 
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.PriorityQueue;
+import java.util.Random;
 import java.util.Set;
 import java.util.Stack;
 
 import edu.ncsu.csc411.ps06.environment.Action;
+import edu.ncsu.csc411.ps06.environment.Direction;
 import edu.ncsu.csc411.ps06.environment.Environment;
+import edu.ncsu.csc411.ps06.environment.EnvironmentListener;
+import edu.ncsu.csc411.ps06.environment.Inventory;
 import edu.ncsu.csc411.ps06.environment.Position;
 import edu.ncsu.csc411.ps06.environment.Tile;
 import edu.ncsu.csc411.ps06.environment.TileStatus;
+import edu.ncsu.csc411.ps06.utils.CancellationToken;
+import edu.ncsu.csc411.ps06.utils.LogLevel;
+import edu.ncsu.csc411.ps06.utils.Logger;
 
 /**
  * Represents a planning agent within an environment modeled after the Chip's
@@ -52,23 +57,76 @@ public class Robot {
 	private Stack<Action> currentPlan = new Stack<>();
 	private Set<Position> visitedPositions = new HashSet<>();
 	private Map<Position, TileStatus> knownTiles = new HashMap<>();
-	private Set<TileStatus> collectedItems = new HashSet<>();
-	private ArrayList<String> inventory = new ArrayList<>();
-	// field to store recent positions for loop detection
-	private List<Position> recentPositions = new ArrayList<>();
+	// The states (Environment.getStateHash()) and cells of the last
+	// STATE_WINDOW decisions, oldest at historyHead once the ring is full,
+	// and how often each state occurs in them. A state seen again is a real
+	// cycle, where a cell seen again may just be a return with a new key
+	private final long[] recentStates = new long[STATE_WINDOW];
+	private final int[] recentCells = new int[STATE_WINDOW];
+	private int historyHead = 0;
+	private int historySize = 0;
+	private Map<Long, Integer> stateVisits = new HashMap<>();
+	private int currentStateVisits = 0;
 	
-	// Performance optimization caches
-	private Map<Position, TileStatus> environmentCache = new HashMap<>();
+	// Performance optimization caches; environmentCache is indexed by cell id
+	private TileStatus[] environmentCache;
 	private Map<String, List<Action>> pathCache = new HashMap<>();
-	private Map<Position, Map<Position, Integer>> distanceCache = new HashMap<>();
-	private long lastEnvironmentUpdate = 0;
-	private final long CACHE_VALIDITY_MS = 1000; // Cache valid for 1 second
+	// Environment versions the caches above and the sensing were last brought up to date with
+	private int cachedTileVersion;
+	private int sensedMoveVersion = -1;
 	private final int MAX_VISITED_POSITIONS = 1000; // Limit memory usage
-	private final int MAX_RECENT_POSITIONS = 8; // Reduced from 10
-	private int iterationCount = 0;
+	private static final int STATE_WINDOW = 64; // Decisions loop detection looks back over
+	private final int CYCLE_VISITS = 3; // A state seen this often in the window is a loop
 	private Position lastProgressPosition = null;
 	private int progressStuckCounter = 0;
 
+	// Reusable sensing buffers, indexed by Direction ordinal
+	private final Position[] neighborBuffer = new Position[Direction.COUNT];
+	private final TileStatus[] neighborStatusBuffer = new TileStatus[Direction.COUNT];
+
+	// A* engine, created on first use, and the passability test it runs against
+	private PathFinder pathFinder;
+	private final PathFinder.Passability cachedPassability = cell -> isPassable(environmentCache[cell]);
+	// Keeps environmentCache up to date one tile at a time once it is built
+	private final EnvironmentListener cacheUpdater = new EnvironmentListener() {
+		@Override
+		public void tileChanged(int cell, TileStatus status) {
+			environmentCache[cell] = status;
+			// Doors and keys change passability, so paths may have changed too
+			pathCache.clear();
+		}
+
+		@Override
+		public void robotMoved(Robot robot, int from, int to) {
+		}
+
+		@Override
+		public void environmentReset() {
+			// The reset replaced this robot with a new one
+			env.removeListener(this);
+			environmentCache = null;
+		}
+	};
+	// Distance fields to the targets planned for, built as they are needed,
+	// and the target ordering that reads them
+	private DistanceFields distanceFields;
+	private TourPlanner tourPlanner;
+
+	// A complete plan from PuzzleSolver, replayed while the robot stays on it
+	private boolean solveAttempted = false;
+	private List<Action> solution;
+	private int solutionStep;
+	private int expectedCell;
+
+	// Source of the random moves used to break out of loops
+	private Random random = new Random();
+	// Polled while planning; once cancelled the robot only waits
+	private CancellationToken cancellation = new CancellationToken();
+	// Where the robot reports its reasoning; silent unless a simulation sets one
+	private Logger log = Logger.OFF;
+	// Latencies and planning counts, read by the simulation after a run
+	private final RobotMetrics metrics = new RobotMetrics();
+
 	/**
 	 * Initializes a Robot on a specific tile in the environment.
 	 * 
@@ -78,6 +136,53 @@ public class Robot {
 		this.env = env;
 	}
 
+	/**
+	 * Seeds the robot's random choices, so that a run can be repeated.
+	 * 
+	 * @param seed - The seed
+	 */
+	public void setRandomSeed(long seed) {
+		this.random = new Random(seed);
+	}
+
+	/**
+	 * Sets the token that tells the robot to stop planning. Searches in
+	 * progress give up when it is cancelled, and getAction then returns
+	 * Action.DO_NOTHING.
+	 * 
+	 * @param cancellation - The token to poll
+	 */
+	public void setCancellationToken(CancellationToken cancellation) {
+		this.cancellation = cancellation;
+		if (pathFinder != null) {
+			pathFinder.setCancellationToken(cancellation);
+		}
+	}
+
+	/**
+	 * Sets where the robot reports what it is doing. Its reasoning is
+	 * reported at LogLevel.DEBUG and the failures it recovers from at
+	 * LogLevel.ERROR.
+	 * 
+	 * @param log - The Logger to report to
+	 */
+	public void setLogger(Logger log) {
+		this.log = log;
+	}
+
+	/**
+	 * Returns what the robot has spent its time on so far. Read it from the
+	 * thread that runs the simulation, or once the simulation has ended.
+	 * 
+	 * @return The robot's metrics, updated as it runs
+	 */
+	public RobotMetrics getMetrics() {
+		if (distanceFields != null) {
+			metrics.setFieldBuilds(distanceFields.getBuildCount(), distanceFields.getBuildNanos());
+		}
+		return metrics;
+	}
+
 	/**
 	 * Determines the next action for the robot to take. The main decision making
 	 * function for the robot.
@@ -87,7 +192,26 @@ public class Robot {
 	 *         Action.MOVE_LEFT - Action.MOVE_RIGHT
 	 */
 	public Action getAction() {
+		long start = System.nanoTime();
 		try {
+			return decideAction();
+		} finally {
+			metrics.recordAction(System.nanoTime() - start);
+		}
+	}
+
+	private Action decideAction() {
+		try {
+			if (cancellation.isCancelled()) {
+				return Action.DO_NOTHING;
+			}
+
+			// Replay the full solution while the robot is where it expects to be
+			Action solvedAction = nextSolvedAction();
+			if (solvedAction != null) {
+				return solvedAction;
+			}
+
 			// If we have a plan and it's not empty, follow it
 			if (currentPlan != null && !currentPlan.isEmpty()) {
 				return currentPlan.pop();
@@ -99,11 +223,64 @@ public class Robot {
 			return (newAction != null) ? newAction : Action.DO_NOTHING;
 		} catch (Exception e) {
 			// Emergency fallback to prevent crashes
-			System.out.println("Error in getAction: " + e.getMessage());
+			log.error("Error in getAction: %s", e.getMessage());
 			return Action.DO_NOTHING;
 		}
 	}
 
+	/**
+	 * Solves the whole map on the first call, then returns the solution's
+	 * actions one at a time. If the robot ever ends up somewhere other than
+	 * where the solution expects, the solution is dropped.
+	 * 
+	 * @return The next solved action, or null to fall back to createNewPlan
+	 */
+	private Action nextSolvedAction() {
+		Position robotPos = env.getRobotPosition(this);
+		if (robotPos == null) {
+			return null;
+		}
+		int cell = env.getCellId(robotPos);
+
+		if (!solveAttempted) {
+			solveAttempted = true;
+			long solveStart = System.nanoTime();
+			PuzzleSolver solver = new PuzzleSolver(env);
+			solver.setCancellationToken(cancellation);
+			solution = solver.solve(cell);
+			metrics.recordSolve(System.nanoTime() - solveStart, solver.getStatesExpanded());
+			solutionStep = 0;
+			expectedCell = cell;
+			if (solution != null) {
+				log.debug("Solved map in %d moves", solution.size());
+			} else {
+				log.debug("No full solution found, planning step by step");
+			}
+		}
+
+		if (solution == null) {
+			return null;
+		}
+		if (solutionStep >= solution.size()) {
+			log.debug("Solved route finished, planning step by step");
+			solution = null;
+			return null;
+		}
+		if (cell != expectedCell) {
+			log.debug("Robot left the solved route, planning step by step");
+			metrics.countReplan();
+			solution = null;
+			return null;
+		}
+
+		Action action = solution.get(solutionStep++);
+		Direction direction = Direction.of(action);
+		if (direction != null) {
+			expectedCell = env.getAdjacency()[cell][direction.ordinal()];
+		}
+		return action;
+	}
+
 	/**
 	 * Creates a new plan for the robot based on current environmental conditions.
 	 * Prioritizes goals in the following order: 1. Reach goal if all chips
@@ -113,6 +290,7 @@ public class Robot {
 	 * @return The next action to take based on the new plan
 	 */
 	private Action createNewPlan() {
+		metrics.countPlan();
 		try {
 			// Update what we know about the environment
 			updateKnowledge();
@@ -124,23 +302,19 @@ public class Robot {
 			}
 
 			// Debug info
-			System.out.println("Current position: " + currentPos);
-			System.out.println("Remaining chips: " + env.getNumRemainingChips());
-
-			// Keep track of position history for stuck detection
-			if (recentPositions == null) {
-				recentPositions = new ArrayList<>();
+			if (log.isEnabled(LogLevel.DEBUG)) {
+				log.debug("Current position: %s", currentPos);
+				log.debug("Remaining chips: %d", env.getNumRemainingChips());
 			}
 
-			recentPositions.add(currentPos);
-			if (recentPositions.size() > MAX_RECENT_POSITIONS) {
-				recentPositions.remove(0);
-			}
+			// Keep track of state history for stuck detection
+			currentStateVisits = recordStateVisit(env.getCellId(currentPos));
 
 			// Use advanced stuck detection
 			boolean isStuck = isStuckAdvanced(currentPos);
 			if (isStuck) {
-				System.out.println("DETECTED STUCK CONDITION - trying alternative strategies");
+				log.debug("DETECTED STUCK CONDITION - trying alternative strategies");
+				metrics.countStuck();
 			}
 
 			// Check if we're at the goal and have collected all chips
@@ -149,7 +323,7 @@ public class Robot {
 				Position goalPos = getGoalPositionSafely();
 
 				if (goalPos != null) {
-					System.out.println("Goal found at: " + goalPos);
+					log.debug("Goal found at: %s", goalPos);
 
 					// Are we already at the goal?
 					if (currentPos.equals(goalPos)) {
@@ -169,7 +343,7 @@ public class Robot {
 
 					return goalAction != null ? goalAction : exploreEnvironment(currentPos);
 				} else {
-					System.out.println("Goal position is null, searching for goal...");
+					log.debug("Goal position is null, searching for goal...");
 
 					// If we're stuck, try finding doors
 					if (isStuck) {
@@ -206,8 +380,7 @@ public class Robot {
 			// If we can't do anything useful, explore
 			return exploreEnvironment(currentPos);
 		} catch (Exception e) {
-			System.out.println("Error in createNewPlan: " + e.getMessage());
-			e.printStackTrace();
+			log.error("Error in createNewPlan", e);
 			return Action.DO_NOTHING;
 		}
 	}
@@ -221,55 +394,46 @@ public class Robot {
 	private Action searchForGoal(Position currentPos) {
 		try {
 			// Look for any unexplored areas first
-			Map<String, Position> neighbors = env.getNeighborPositions(currentPos);
-			Map<String, Tile> neighborTiles = env.getNeighborTiles(this);
-
-			if (neighbors != null && neighborTiles != null) {
-				// First check for unexplored positions
-				for (Map.Entry<String, Position> entry : neighbors.entrySet()) {
-					String direction = entry.getKey();
-					Position neighborPos = entry.getValue();
-
-					if (neighborPos != null && !visitedPositions.contains(neighborPos)
-							&& neighborTiles.containsKey(direction)) {
-						Tile neighborTile = neighborTiles.get(direction);
-						if (neighborTile != null) {
-							TileStatus status = neighborTile.getStatus();
-							if (isPassable(status)) {
-								System.out.println("Searching for goal: Moving to unexplored " + direction);
-								return getActionForDirection(direction);
-							}
-						}
-					}
+			Position[] neighbors = neighborBuffer;
+			TileStatus[] neighborTiles = neighborStatusBuffer;
+			env.fillNeighborPositions(currentPos, neighbors);
+			env.fillNeighborTiles(this, neighborTiles);
+
+			// First check for unexplored positions
+			for (int d = 0; d < Direction.COUNT; d++) {
+				Position neighborPos = neighbors[d];
+
+				if (neighborPos != null && !visitedPositions.contains(neighborPos)
+						&& isPassable(neighborTiles[d])) {
+					Direction direction = Direction.get(d);
+					log.debug("Searching for goal: Moving to unexplored %s", direction);
+					return direction.getAction();
 				}
+			}
 
-				// If no unexplored positions, find least recently visited area
-				Position leastVisitedPos = findLeastVisitedArea();
-				if (leastVisitedPos != null && !currentPos.equals(leastVisitedPos)) {
-					generatePlan(currentPos, leastVisitedPos);
-					if (!currentPlan.isEmpty()) {
-						System.out.println("Moving to least visited area: " + leastVisitedPos);
-						return currentPlan.pop();
-					}
+			// If no unexplored positions, find least recently visited area
+			Position leastVisitedPos = findLeastVisitedArea();
+			if (leastVisitedPos != null && !currentPos.equals(leastVisitedPos)) {
+				generatePlan(currentPos, leastVisitedPos);
+				if (!currentPlan.isEmpty()) {
+					log.debug("Moving to least visited area: %s", leastVisitedPos);
+					return currentPlan.pop();
 				}
+			}
 
-				// As a last resort, pick any valid direction
-				for (Map.Entry<String, Position> entry : neighbors.entrySet()) {
-					String direction = entry.getKey();
-					if (neighborTiles.containsKey(direction)) {
-						Tile neighborTile = neighborTiles.get(direction);
-						if (neighborTile != null && isPassable(neighborTile.getStatus())) {
-							System.out.println("Searching for goal: Moving " + direction + " as last resort");
-							return getActionForDirection(direction);
-						}
-					}
+			// As a last resort, pick any valid direction
+			for (int d = 0; d < Direction.COUNT; d++) {
+				if (neighbors[d] != null && isPassable(neighborTiles[d])) {
+					Direction direction = Direction.get(d);
+					log.debug("Searching for goal: Moving %s as last resort", direction);
+					return direction.getAction();
 				}
 			}
 
-			System.out.println("Cannot find any direction to search for goal");
+			log.debug("Cannot find any direction to search for goal");
 			return Action.DO_NOTHING;
 		} catch (Exception e) {
-			System.out.println("Error in searchForGoal: " + e.getMessage());
+			log.error("Error in searchForGoal: %s", e.getMessage());
 			return Action.DO_NOTHING;
 		}
 	}
@@ -316,7 +480,7 @@ public class Robot {
 
 			return leastVisited;
 		} catch (Exception e) {
-			System.out.println("Error in findLeastVisitedArea: " + e.getMessage());
+			log.error("Error in findLeastVisitedArea: %s", e.getMessage());
 			return null;
 		}
 	}
@@ -338,7 +502,7 @@ public class Robot {
 
 			if (!chipPositions.isEmpty()) {
 				// Use optimal target ordering for better efficiency
-				List<Position> orderedChips = getOptimalTargetOrder(currentPos, chipPositions);
+				List<Position> orderedChips = getOptimalTargetOrder(currentPos, chipPositions, getGoalPositionSafely());
 				if (!orderedChips.isEmpty()) {
 					Position targetChip = orderedChips.get(0); // Get the best first target
 					generatePlan(currentPos, targetChip);
@@ -349,7 +513,7 @@ public class Robot {
 			}
 			return null;
 		} catch (Exception e) {
-			System.out.println("Error in handleChipCollection: " + e.getMessage());
+			log.error("Error in handleChipCollection: %s", e.getMessage());
 			return null;
 		}
 	}
@@ -366,11 +530,11 @@ public class Robot {
 			try {
 				goalPos = env.getGoalPosition();
 				if (goalPos != null) {
-					System.out.println("Got goal position directly: " + goalPos);
+					log.debug("Got goal position directly: %s", goalPos);
 					return goalPos;
 				}
 			} catch (Exception e) {
-				System.out.println("Error getting goal position from env: " + e.getMessage());
+				log.error("Error getting goal position from env: %s", e.getMessage());
 			}
 
 			// If that didn't work, try to find it ourselves from environment positions
@@ -380,12 +544,12 @@ public class Robot {
 					ArrayList<Position> goalPositions = envPositions.get(TileStatus.DOOR_GOAL);
 					if (goalPositions != null && !goalPositions.isEmpty()) {
 						goalPos = goalPositions.get(0);
-						System.out.println("Found goal in environment positions: " + goalPos);
+						log.debug("Found goal in environment positions: %s", goalPos);
 						return goalPos;
 					}
 				}
 			} catch (Exception e) {
-				System.out.println("Error finding goal in environment positions: " + e.getMessage());
+				log.error("Error finding goal in environment positions: %s", e.getMessage());
 			}
 
 			// If we still can't find it, look for known positions with goal door status
@@ -393,12 +557,12 @@ public class Robot {
 				for (Map.Entry<Position, TileStatus> entry : knownTiles.entrySet()) {
 					if (entry.getValue() == TileStatus.DOOR_GOAL) {
 						goalPos = entry.getKey();
-						System.out.println("Found goal in known tiles: " + goalPos);
+						log.debug("Found goal in known tiles: %s", goalPos);
 						return goalPos;
 					}
 				}
 			} catch (Exception e) {
-				System.out.println("Error finding goal in known tiles: " + e.getMessage());
+				log.error("Error finding goal in known tiles: %s", e.getMessage());
 			}
 
 			// Lastly, try to search through all tiles
@@ -409,20 +573,19 @@ public class Robot {
 						Position pos = entry.getKey();
 						Tile tile = entry.getValue();
 						if (tile != null && tile.getStatus() == TileStatus.DOOR_GOAL) {
-							System.out.println("Found goal in all tiles: " + pos);
+							log.debug("Found goal in all tiles: %s", pos);
 							return pos;
 						}
 					}
 				}
 			} catch (Exception e) {
-				System.out.println("Error finding goal in all tiles: " + e.getMessage());
+				log.error("Error finding goal in all tiles: %s", e.getMessage());
 			}
 
-			System.out.println("Could not find goal position using any method");
+			log.debug("Could not find goal position using any method");
 			return null;
 		} catch (Exception e) {
-			System.out.println("Major error in getGoalPositionSafely: " + e.getMessage());
-			e.printStackTrace();
+			log.error("Major error in getGoalPositionSafely", e);
 			return null;
 		}
 	}
@@ -448,25 +611,25 @@ public class Robot {
 			}
 
 			if (!keyPositions.isEmpty()) {
-				System.out.println("Found " + keyPositions.size() + " keys to collect");
+				log.debug("Found %d keys to collect", keyPositions.size());
 				// Use optimal target ordering for keys too
-				List<Position> orderedKeys = getOptimalTargetOrder(currentPos, keyPositions);
+				List<Position> orderedKeys = getOptimalTargetOrder(currentPos, keyPositions, null);
 				if (!orderedKeys.isEmpty()) {
 					Position targetKey = orderedKeys.get(0);
-					System.out.println("Moving toward optimal key at " + targetKey);
+					log.debug("Moving toward optimal key at %s", targetKey);
 					generatePlan(currentPos, targetKey);
 					if (!currentPlan.isEmpty()) {
 						return currentPlan.pop();
 					} else {
-						System.out.println("Could not plan path to target key");
+						log.debug("Could not plan path to target key");
 					}
 				} else {
-					System.out.println("No accessible keys found");
+					log.debug("No accessible keys found");
 				}
 			}
 			return null;
 		} catch (Exception e) {
-			System.out.println("Error in handleKeyCollection: " + e.getMessage());
+			log.error("Error in handleKeyCollection: %s", e.getMessage());
 			return null;
 		}
 	}
@@ -489,24 +652,9 @@ public class Robot {
 				return false;
 			}
 
-			// Get holdings safely
-			ArrayList<String> holdings = null;
-			try {
-				holdings = env.getRobotHoldings(this);
-			} catch (Exception e) {
-				System.out.println("Error getting holdings: " + e.getMessage());
-				holdings = new ArrayList<>();
-			}
-
-			if (holdings == null) {
-				holdings = new ArrayList<>();
-			}
-
 			// Check for doors we can't open
-			if ((status == TileStatus.DOOR_BLUE && !holdings.contains("KEY_BLUE"))
-					|| (status == TileStatus.DOOR_GREEN && !holdings.contains("KEY_GREEN"))
-					|| (status == TileStatus.DOOR_RED && !holdings.contains("KEY_RED"))
-					|| (status == TileStatus.DOOR_YELLOW && !holdings.contains("KEY_YELLOW"))) {
+			Inventory holdings = env.getRobotInventory(this);
+			if (holdings != null && !holdings.canOpen(status)) {
 				return false;
 			}
 
@@ -521,7 +669,7 @@ public class Robot {
 			// Any other tile is passable
 			return true;
 		} catch (Exception e) {
-			System.out.println("Error in isPassable: " + e.getMessage());
+			log.error("Error in isPassable: %s", e.getMessage());
 			// Default to false if we can't determine passability
 			return false;
 		}
@@ -529,147 +677,87 @@ public class Robot {
 
 	private Action exploreEnvironment(Position currentPos) {
 		try {
-			Map<String, Position> neighbors = env.getNeighborPositions(currentPos);
-			Map<String, Tile> neighborTiles = env.getNeighborTiles(this);
-
-			if (neighbors == null || neighborTiles == null) {
-				return Action.DO_NOTHING;
-			}
+			Position[] neighbors = neighborBuffer;
+			TileStatus[] neighborTiles = neighborStatusBuffer;
+			env.fillNeighborPositions(currentPos, neighbors);
+			env.fillNeighborTiles(this, neighborTiles);
 
 			// Track the current position
 			visitedPositions.add(currentPos);
 
-			// To avoid getting stuck in loops, keep track of last few positions
-			if (recentPositions == null) {
-				recentPositions = new ArrayList<>();
-			}
-
-			recentPositions.add(currentPos);
-			if (recentPositions.size() > MAX_RECENT_POSITIONS) {
-				recentPositions.remove(0);
-			}
-
-			// Check if we're in a loop (same position multiple times)
-			boolean inLoop = false;
-			if (recentPositions.size() >= 6) {
-				int count = 0;
-				for (Position pos : recentPositions) {
-					if (pos.equals(currentPos)) {
-						count++;
-					}
-				}
-				if (count >= 3) {
-					inLoop = true;
-					System.out.println("Detected position loop at " + currentPos);
-				}
+			// Check if we're in a loop (back in the exact same state several times)
+			boolean inLoop = currentStateVisits >= CYCLE_VISITS;
+			if (inLoop) {
+				log.debug("Detected state loop at %s", currentPos);
+				metrics.countStuck();
 			}
 
 			// If we're in a loop, take a random valid move
 			if (inLoop) {
-				List<String> validDirections = new ArrayList<>();
-				for (Map.Entry<String, Position> entry : neighbors.entrySet()) {
-					String direction = entry.getKey();
-					if (neighborTiles.containsKey(direction)) {
-						Tile neighborTile = neighborTiles.get(direction);
-						if (neighborTile != null && isPassable(neighborTile.getStatus())) {
-							validDirections.add(direction);
-						}
+				int validDirections = 0;
+				for (int d = 0; d < Direction.COUNT; d++) {
+					if (neighbors[d] != null && isPassable(neighborTiles[d])) {
+						validDirections++;
 					}
 				}
 
-				if (!validDirections.isEmpty()) {
-					// Pick a random direction
-					int randomIndex = (int) (Math.random() * validDirections.size());
-					String randomDirection = validDirections.get(randomIndex);
-					System.out.println("Breaking loop with random move: " + randomDirection);
-					return getActionForDirection(randomDirection);
+				if (validDirections > 0) {
+					// Pick a random direction, then walk to the chosen valid one
+					int randomIndex = random.nextInt(validDirections);
+					for (int d = 0; d < Direction.COUNT; d++) {
+						if (neighbors[d] != null && isPassable(neighborTiles[d]) && randomIndex-- == 0) {
+							Direction randomDirection = Direction.get(d);
+							log.debug("Breaking loop with random move: %s", randomDirection);
+							return randomDirection.getAction();
+						}
+					}
 				}
 			}
 
 			// Prioritize unvisited positions for exploration
-			for (Map.Entry<String, Position> entry : neighbors.entrySet()) {
-				String direction = entry.getKey();
-				Position neighborPos = entry.getValue();
+			for (int d = 0; d < Direction.COUNT; d++) {
+				Position neighborPos = neighbors[d];
 
 				if (neighborPos != null && !visitedPositions.contains(neighborPos)
-						&& neighborTiles.containsKey(direction)) {
-					Tile neighborTile = neighborTiles.get(direction);
-					if (neighborTile != null) {
-						TileStatus status = neighborTile.getStatus();
-
-						if (isPassable(status)) {
-							System.out.println("Exploring unvisited direction: " + direction);
-							return getActionForDirection(direction);
-						}
-					}
+						&& isPassable(neighborTiles[d])) {
+					Direction direction = Direction.get(d);
+					log.debug("Exploring unvisited direction: %s", direction);
+					return direction.getAction();
 				}
 			}
 
 			// If no unvisited neighbors, move to least recently visited neighbor
-			if (!neighbors.isEmpty()) {
-				String leastVisitedDirection = null;
-				int minVisits = Integer.MAX_VALUE;
+			Direction leastVisitedDirection = null;
+			int minVisits = Integer.MAX_VALUE;
+
+			for (int d = 0; d < Direction.COUNT; d++) {
+				Position neighborPos = neighbors[d];
 
-				for (Map.Entry<String, Position> entry : neighbors.entrySet()) {
-					String direction = entry.getKey();
-					Position neighborPos = entry.getValue();
-
-					if (neighborPos != null && neighborTiles.containsKey(direction)) {
-						Tile neighborTile = neighborTiles.get(direction);
-						if (neighborTile != null && isPassable(neighborTile.getStatus())) {
-							// Count how many times we've visited this position
-							int visits = 0;
-							for (Position pos : visitedPositions) {
-								if (pos.equals(neighborPos)) {
-									visits++;
-								}
-							}
-
-							if (visits < minVisits) {
-								minVisits = visits;
-								leastVisitedDirection = direction;
-							}
+				if (neighborPos != null && isPassable(neighborTiles[d])) {
+					// Count how many times we've visited this position
+					int visits = 0;
+					for (Position pos : visitedPositions) {
+						if (pos.equals(neighborPos)) {
+							visits++;
 						}
 					}
-				}
 
-				if (leastVisitedDirection != null) {
-					System.out.println("Moving to least visited direction: " + leastVisitedDirection);
-					return getActionForDirection(leastVisitedDirection);
+					if (visits < minVisits) {
+						minVisits = visits;
+						leastVisitedDirection = Direction.get(d);
+					}
 				}
 			}
 
-			// If all else fails, move in any valid direction
-			for (Map.Entry<String, Position> entry : neighbors.entrySet()) {
-				String direction = entry.getKey();
-				if (neighborTiles.containsKey(direction)) {
-					Tile neighborTile = neighborTiles.get(direction);
-					if (neighborTile != null && isPassable(neighborTile.getStatus())) {
-						System.out.println("Moving in any valid direction: " + direction);
-						return getActionForDirection(direction);
-					}
-				}
+			if (leastVisitedDirection != null) {
+				log.debug("Moving to least visited direction: %s", leastVisitedDirection);
+				return leastVisitedDirection.getAction();
 			}
 
-			System.out.println("No valid moves found, staying put");
+			log.debug("No valid moves found, staying put");
 			return Action.DO_NOTHING;
 		} catch (Exception e) {
-			System.out.println("Error in exploreEnvironment: " + e.getMessage());
-			return Action.DO_NOTHING;
-		}
-	}
-
-	private Action getActionForDirection(String direction) {
-		switch (direction) {
-		case "above":
-			return Action.MOVE_UP;
-		case "below":
-			return Action.MOVE_DOWN;
-		case "left":
-			return Action.MOVE_LEFT;
-		case "right":
-			return Action.MOVE_RIGHT;
-		default:
+			log.error("Error in exploreEnvironment: %s", e.getMessage());
 			return Action.DO_NOTHING;
 		}
 	}
@@ -678,20 +766,23 @@ public class Robot {
 	private void generatePlan(Position start, Position goal) {
 		try {
 			if (start == null || goal == null) {
-				System.out.println("Cannot generate plan: start or goal is null");
+				log.debug("Cannot generate plan: start or goal is null");
 				currentPlan.clear();
 				return;
 			}
 
-			System.out.println("Planning path from " + start + " to " + goal);
+			log.debug("Planning path from %s to %s", start, goal);
 			List<Action> planList = planPath(start, goal);
 
 			// Clear the current plan
+			if (!currentPlan.isEmpty()) {
+				metrics.countReplan();
+			}
 			currentPlan.clear();
 
 			// Add actions in reverse order for stack (LIFO) behavior
 			if (planList != null && !planList.isEmpty()) {
-				System.out.println("Path found with " + planList.size() + " steps");
+				log.debug("Path found with %d steps", planList.size());
 				for (int i = planList.size() - 1; i >= 0; i--) {
 					Action action = planList.get(i);
 					if (action != null) {
@@ -699,32 +790,24 @@ public class Robot {
 					}
 				}
 			} else {
-				System.out.println("No path found!");
+				log.debug("No path found!");
 			}
 		} catch (Exception e) {
-			System.out.println("Error in generatePlan: " + e.getMessage());
-			e.printStackTrace();
+			log.error("Error in generatePlan", e);
 			currentPlan.clear(); // Make sure we don't have a corrupted plan
 		}
 	}
 
 	/**
-	 * Updates the robot's knowledge of the environment. Records visited positions,
-	 * discovered tiles, and inventory changes.
+	 * Updates the robot's knowledge of the environment. Records visited positions
+	 * and discovered tiles.
 	 */
 	private void updateKnowledge() {
 		try {
-			iterationCount++;
 			Position robotPos = env.getRobotPosition(this);
 			if (robotPos == null)
 				return;
 
-			Map<String, Tile> neighborTiles = env.getNeighborTiles(this);
-			Map<String, Position> neighborPositions = env.getNeighborPositions(robotPos);
-
-			if (neighborTiles == null || neighborPositions == null)
-				return;
-
 			visitedPositions.add(robotPos);
 			
 			// Memory management - limit visited positions
@@ -740,54 +823,34 @@ public class Robot {
 				}
 			}
 
+			// Nothing around the robot can differ unless it moved or a tile changed
+			boolean unchanged = env.getMoveVersion() == sensedMoveVersion
+					&& env.getTileVersion() == cachedTileVersion;
+			sensedMoveVersion = env.getMoveVersion();
+
 			// Update environment cache if needed
 			updateEnvironmentCache();
+			updateDistanceFields();
+			if (unchanged) {
+				return;
+			}
 
 			// Update known tiles with neighbor information
-			for (Map.Entry<String, Position> entry : neighborPositions.entrySet()) {
-				String direction = entry.getKey();
-				Position neighborPos = entry.getValue();
-
-				if (direction != null && neighborPos != null && neighborTiles.containsKey(direction)) {
-					Tile tile = neighborTiles.get(direction);
-					if (tile != null) {
-						knownTiles.put(neighborPos, tile.getStatus());
-						environmentCache.put(neighborPos, tile.getStatus());
-					}
+			Position[] neighborPositions = neighborBuffer;
+			TileStatus[] neighborTiles = neighborStatusBuffer;
+			env.fillNeighborPositions(robotPos, neighborPositions);
+			env.fillNeighborTiles(this, neighborTiles);
+			for (int d = 0; d < Direction.COUNT; d++) {
+				Position neighborPos = neighborPositions[d];
+				TileStatus status = neighborTiles[d];
+
+				if (neighborPos != null && status != null) {
+					knownTiles.put(neighborPos, status);
+					environmentCache[env.getCellId(neighborPos)] = status;
 				}
 			}
-
-			// Update inventory based on robot holdings
-			try {
-				inventory.clear();
-				ArrayList<String> holdings = env.getRobotHoldings(this);
-				if (holdings != null) {
-					for (String item : holdings) {
-						if (item == null)
-							continue;
-
-						inventory.add(item);
-						switch (item) {
-						case "KEY_BLUE":
-							collectedItems.add(TileStatus.KEY_BLUE);
-							break;
-						case "KEY_GREEN":
-							collectedItems.add(TileStatus.KEY_GREEN);
-							break;
-						case "KEY_RED":
-							collectedItems.add(TileStatus.KEY_RED);
-							break;
-						case "KEY_YELLOW":
-							collectedItems.add(TileStatus.KEY_YELLOW);
-							break;
-						}
-					}
-				}
-			} catch (Exception e) {
-				System.out.println("Error updating inventory: " + e.getMessage());
-			}
 		} catch (Exception e) {
-			System.out.println("Error in updateKnowledge: " + e.getMessage());
+			log.error("Error in updateKnowledge: %s", e.getMessage());
 		}
 	}
 
@@ -798,109 +861,48 @@ public class Robot {
 		}
 
 		try {
+			// Points of interest get a distance field, which later plans to the
+			// same target reuse while it stays cached; walk straight down it
+			updateDistanceFields();
+			int goalCell = env.getCellId(goal);
+			TileStatus goalStatus = env.getTileStatus(goalCell);
+			if ((distanceFields.hasField(goalCell) || DistanceFields.isPointOfInterest(goalStatus))
+					&& isPassable(goalStatus)) {
+				List<Action> path = new ArrayList<>();
+				if (distanceFields.descend(env.getCellId(start), goalCell, path)) {
+					return path;
+				}
+			}
+
 			// Check path cache first
 			List<Action> cachedPath = getCachedPath(start, goal);
+			metrics.countCacheLookup(cachedPath != null);
 			if (cachedPath != null) {
 				return new ArrayList<>(cachedPath);
 			}
 
-			PriorityQueue<Node> openSet = new PriorityQueue<>(Comparator.comparingInt(n -> n.fScore));
-			Map<Position, Node> nodeMap = new HashMap<>();
-			Set<Position> closedSet = new HashSet<>();
-
-			// Use cached environment data for better performance
-			Map<Position, TileStatus> tilesToUse = new HashMap<>(environmentCache);
-			tilesToUse.putAll(knownTiles); // Add any additional known tiles
-
-			Node startNode = new Node(start);
-			startNode.gScore = 0;
-			startNode.fScore = estimateDistance(start, goal);
-
-			openSet.add(startNode);
-			nodeMap.put(start, startNode);
-
-			int iterations = 0;
-			final int MAX_ITERATIONS = 1000; // Safety limit
-
-			while (!openSet.isEmpty() && iterations < MAX_ITERATIONS) {
-				iterations++;
-				Node current = openSet.poll();
-
-				if (current.position.equals(goal)) {
-					System.out.println("Path found in " + iterations + " iterations");
-					List<Action> path = reconstructPath(current);
-					cachePath(start, goal, path); // Cache the computed path
-					return path;
-				}
-
-				closedSet.add(current.position);
-
-				Map<String, Position> neighbors = null;
-				try {
-					neighbors = env.getNeighborPositions(current.position);
-				} catch (Exception e) {
-					System.out.println("Error getting neighbors: " + e.getMessage());
-					continue;
-				}
-
-				if (neighbors == null)
-					continue; // Skip if no neighbors
-
-				for (Map.Entry<String, Position> entry : neighbors.entrySet()) {
-					String direction = entry.getKey();
-					Position neighborPos = entry.getValue();
-
-					if (direction == null || neighborPos == null)
-						continue;
-
-					// Skip if we've already processed this position
-					if (closedSet.contains(neighborPos)) {
-						continue;
-					}
-
-					// Check if the position is passable
-					TileStatus neighborStatus = tilesToUse.get(neighborPos);
-
-					// If we don't know about this tile yet, assume it's passable
-					if (neighborStatus == null) {
-						neighborStatus = TileStatus.BLANK;
-					}
-
-					if (!isPassable(neighborStatus)) {
-						continue;
-					}
-
-					// Calculate tentative g score
-					int tentativeGScore = current.gScore + 1;
-
-					// Get or create neighbor node
-					Node neighbor = nodeMap.getOrDefault(neighborPos, new Node(neighborPos));
-
-					if (tentativeGScore < neighbor.gScore) {
-						// This is a better path
-						neighbor.parent = current;
-						neighbor.direction = direction;
-						neighbor.gScore = tentativeGScore;
-						neighbor.fScore = tentativeGScore + estimateDistance(neighborPos, goal);
-
-						nodeMap.put(neighborPos, neighbor);
-
-						// Remove and re-add to update its position in the priority queue
-						openSet.remove(neighbor);
-						openSet.add(neighbor);
-					}
-				}
+			if (pathFinder == null) {
+				pathFinder = new PathFinder(env);
+				pathFinder.setCancellationToken(cancellation);
+			}
+			if (environmentCache == null) {
+				updateEnvironmentCache();
 			}
 
-			if (iterations >= MAX_ITERATIONS) {
-				System.out.println("Path planning reached iteration limit!");
+			// Search over the cached tiles, which also hold every observed neighbor
+			List<Action> path = new ArrayList<>();
+			boolean found = pathFinder.findPath(env.getCellId(start), env.getCellId(goal), cachedPassability, path);
+			metrics.countSearch(pathFinder.getNodesExpanded());
+			if (found) {
+				log.debug("Path found in %d iterations", pathFinder.getNodesExpanded());
+				cachePath(start, goal, path); // Cache the computed path
+				return path;
 			}
 
 			// If we reach here, no path was found
 			return new ArrayList<>();
 		} catch (Exception e) {
-			System.out.println("Error in planPath: " + e.getMessage());
-			e.printStackTrace();
+			log.error("Error in planPath", e);
 			return new ArrayList<>();
 		}
 	}
@@ -913,60 +915,30 @@ public class Robot {
 		try {
 			return Math.abs(a.getRow() - b.getRow()) + Math.abs(a.getCol() - b.getCol());
 		} catch (Exception e) {
-			System.out.println("Error in estimateDistance: " + e.getMessage());
+			log.error("Error in estimateDistance: %s", e.getMessage());
 			return Integer.MAX_VALUE;
 		}
 	}
 
-	private List<Action> reconstructPath(Node goalNode) {
-		List<Action> actions = new ArrayList<>();
-
-		try {
-			if (goalNode == null)
-				return actions; // Return empty list if goalNode is null
-
-			Node current = goalNode;
-			while (current != null && current.parent != null) {
-				if (current.direction == null) {
-					// If direction is null, skip this node
-					current = current.parent;
-					continue;
-				}
-
-				Action action = getActionForDirection(current.direction);
-				if (action != null && action != Action.DO_NOTHING) {
-					actions.add(0, action);
-				}
-
-				current = current.parent;
-			}
-		} catch (Exception e) {
-			System.out.println("Error in reconstructPath: " + e.getMessage());
-			// Return whatever path we've built so far
-		}
-
-		return actions;
-	}
-
 // ********************** DOOR HANDLING ***********************
 // Improved method to handle door opening
 // Add this method to actively search for doors when stuck
 	private Action findAndOpenDoors(Position currentPos) {
 		try {
 			// First check if we have any keys
-			ArrayList<String> holdings = env.getRobotHoldings(this);
+			Inventory holdings = env.getRobotInventory(this);
 			if (holdings == null || holdings.isEmpty()) {
-				System.out.println("No keys to use, can't search for doors");
+				log.debug("No keys to use, can't search for doors");
 				return null;
 			}
 
-			System.out.println("Looking for doors to open with keys: " + holdings);
+			log.debug("Looking for doors to open with keys: %s", holdings);
 
 			// Check which doors we can open
-			boolean hasBlueKey = holdings.contains("KEY_BLUE");
-			boolean hasGreenKey = holdings.contains("KEY_GREEN");
-			boolean hasRedKey = holdings.contains("KEY_RED");
-			boolean hasYellowKey = holdings.contains("KEY_YELLOW");
+			boolean hasBlueKey = holdings.has(TileStatus.KEY_BLUE);
+			boolean hasGreenKey = holdings.has(TileStatus.KEY_GREEN);
+			boolean hasRedKey = holdings.has(TileStatus.KEY_RED);
+			boolean hasYellowKey = holdings.has(TileStatus.KEY_YELLOW);
 
 			// List to store door positions
 			List<Position> accessibleDoors = new ArrayList<>();
@@ -989,13 +961,13 @@ public class Robot {
 				}
 			}
 
-			System.out.println("Found " + accessibleDoors.size() + " doors we can open");
+			log.debug("Found %d doors we can open", accessibleDoors.size());
 
 			if (!accessibleDoors.isEmpty()) {
 				// First try to find any door we haven't visited yet
 				for (Position doorPos : accessibleDoors) {
 					if (!visitedPositions.contains(doorPos)) {
-						System.out.println("Moving toward unvisited door at " + doorPos);
+						log.debug("Moving toward unvisited door at %s", doorPos);
 						// Try to find a path to area near the door
 						return moveTowardPosition(currentPos, doorPos);
 					}
@@ -1020,14 +992,14 @@ public class Robot {
 				}
 
 				if (leastVisitedDoor != null) {
-					System.out.println("Moving toward least visited door at " + leastVisitedDoor);
+					log.debug("Moving toward least visited door at %s", leastVisitedDoor);
 					return moveTowardPosition(currentPos, leastVisitedDoor);
 				}
 			}
 
 			return null;
 		} catch (Exception e) {
-			System.out.println("Error in findAndOpenDoors: " + e.getMessage());
+			log.error("Error in findAndOpenDoors: %s", e.getMessage());
 			return null;
 		}
 	}
@@ -1046,14 +1018,14 @@ public class Robot {
 			// 1. Try standard A* first
 			generatePlan(currentPos, targetPos);
 			if (!currentPlan.isEmpty()) {
-				System.out.println("Following plan to target, next action: " + currentPlan.peek());
+				log.debug("Following plan to target, next action: %s", currentPlan.peek());
 				return currentPlan.pop();
 			}
 
 			// 2. Try going to adjacent tile if target is unreachable
 			Map<Position, Integer> adjacentPositions = findAdjacentPositions(targetPos);
 			if (!adjacentPositions.isEmpty()) {
-				System.out.println("Target directly unreachable, trying adjacent positions");
+				log.debug("Target directly unreachable, trying adjacent positions");
 				Position bestAdjacent = null;
 				int shortestPath = Integer.MAX_VALUE;
 
@@ -1067,7 +1039,7 @@ public class Robot {
 				}
 
 				if (bestAdjacent != null) {
-					System.out.println("Found path to adjacent position: " + bestAdjacent);
+					log.debug("Found path to adjacent position: %s", bestAdjacent);
 					generatePlan(currentPos, bestAdjacent);
 					if (!currentPlan.isEmpty()) {
 						return currentPlan.pop();
@@ -1076,51 +1048,40 @@ public class Robot {
 			}
 
 			// 3. Try basic direction-based movement
-			Map<String, Position> neighbors = env.getNeighborPositions(currentPos);
-			Map<String, Tile> neighborTiles = env.getNeighborTiles(this);
-
-			if (neighbors != null && neighborTiles != null) {
-				String bestDirection = null;
-				int bestDistance = Integer.MAX_VALUE;
-
-				for (Map.Entry<String, Position> entry : neighbors.entrySet()) {
-					String direction = entry.getKey();
-					Position neighborPos = entry.getValue();
-
-					if (neighborPos != null && neighborTiles.containsKey(direction)) {
-						Tile neighborTile = neighborTiles.get(direction);
-						if (neighborTile != null && isPassable(neighborTile.getStatus())) {
-							int distance = estimateDistance(neighborPos, targetPos);
-
-							// Avoid positions we've recently visited to prevent loops
-							boolean recentlyVisited = false;
-							if (recentPositions.size() > 3) {
-								for (int i = recentPositions.size() - 3; i < recentPositions.size(); i++) {
-									if (recentPositions.get(i).equals(neighborPos)) {
-										recentlyVisited = true;
-										break;
-									}
-								}
-							}
-
-							if (!recentlyVisited && distance < bestDistance) {
-								bestDistance = distance;
-								bestDirection = direction;
-							}
-						}
+			Position[] neighbors = neighborBuffer;
+			TileStatus[] neighborTiles = neighborStatusBuffer;
+			env.fillNeighborPositions(currentPos, neighbors);
+			env.fillNeighborTiles(this, neighborTiles);
+
+			Direction bestDirection = null;
+			int bestDistance = Integer.MAX_VALUE;
+
+			for (int d = 0; d < Direction.COUNT; d++) {
+				Position neighborPos = neighbors[d];
+
+				if (neighborPos != null && isPassable(neighborTiles[d])) {
+					int distance = estimateDistance(neighborPos, targetPos);
+
+					// Avoid positions we've recently visited to prevent loops
+					boolean recentlyVisited = historySize > 3
+							&& wasRecentlyAt(env.getCellId(neighborPos), 3);
+
+					if (!recentlyVisited && distance < bestDistance) {
+						bestDistance = distance;
+						bestDirection = Direction.get(d);
 					}
 				}
+			}
 
-				if (bestDirection != null) {
-					System.out.println("Moving " + bestDirection + " toward target");
-					return getActionForDirection(bestDirection);
-				}
+			if (bestDirection != null) {
+				log.debug("Moving %s toward target", bestDirection);
+				return bestDirection.getAction();
 			}
 
 			// 4. Try exploration as a last resort
 			return exploreEnvironment(currentPos);
 		} catch (Exception e) {
-			System.out.println("Error in moveTowardPosition: " + e.getMessage());
+			log.error("Error in moveTowardPosition: %s", e.getMessage());
 			return exploreEnvironment(currentPos);
 		}
 	}
@@ -1130,174 +1091,81 @@ public class Robot {
 		Map<Position, Integer> adjacentPositions = new HashMap<>();
 
 		try {
-			// Get positions around the target
-			Map<Position, TileStatus> knownTilesAround = new HashMap<>();
-
-			// Try to get data from environment
-			try {
-				Map<Position, Tile> allTiles = env.getTiles();
-				if (allTiles != null) {
-					for (Map.Entry<Position, Tile> entry : allTiles.entrySet()) {
-						Position pos = entry.getKey();
-						Tile tile = entry.getValue();
-						if (tile != null) {
-							knownTilesAround.put(pos, tile.getStatus());
-						}
-					}
+			// Check the cells in 4 directions using the adjacency table
+			int[] adjacent = env.getAdjacency()[env.getCellId(targetPos)];
+			for (int d = 0; d < Direction.COUNT; d++) {
+				int cell = adjacent[d];
+				if (cell != Environment.NO_CELL && isPassable(env.getTileStatus(cell))) {
+					Position pos = env.getPosition(cell);
+					adjacentPositions.put(pos, estimateDistance(pos, targetPos));
 				}
-			} catch (Exception e) {
-				System.out.println("Error getting tiles around target: " + e.getMessage());
-				// Continue with what we have in knownTiles
-				knownTilesAround.putAll(knownTiles);
 			}
 
-			// Check positions in 4 directions (can extend this to 8 if needed)
-			int row = targetPos.getRow();
-			int col = targetPos.getCol();
-
-			checkAndAddAdjacentPosition(knownTilesAround, adjacentPositions, new Position(row - 1, col), targetPos); // Above
-			checkAndAddAdjacentPosition(knownTilesAround, adjacentPositions, new Position(row + 1, col), targetPos); // Below
-			checkAndAddAdjacentPosition(knownTilesAround, adjacentPositions, new Position(row, col - 1), targetPos); // Left
-			checkAndAddAdjacentPosition(knownTilesAround, adjacentPositions, new Position(row, col + 1), targetPos); // Right
-
 			return adjacentPositions;
 		} catch (Exception e) {
-			System.out.println("Error in findAdjacentPositions: " + e.getMessage());
+			log.error("Error in findAdjacentPositions: %s", e.getMessage());
 			return adjacentPositions;
 		}
 	}
 
-// Helper to check if a position is passable and add it to adjacent positions
-	private void checkAndAddAdjacentPosition(Map<Position, TileStatus> knownTilesAround,
-			Map<Position, Integer> adjacentPositions, Position pos, Position targetPos) {
-		try {
-			if (knownTilesAround.containsKey(pos)) {
-				TileStatus status = knownTilesAround.get(pos);
-				if (isPassable(status)) {
-					adjacentPositions.put(pos, estimateDistance(pos, targetPos));
-				}
-			} else {
-				// If we don't know about this position, assume it's passable (optimistic)
-				adjacentPositions.put(pos, estimateDistance(pos, targetPos));
-			}
-		} catch (Exception e) {
-			System.out.println("Error checking adjacent position: " + e.getMessage());
-		}
-	}
-
 	// Performance optimization methods
 	
+	/*
+	 * Copies the grid into the tile cache the first time; from then on
+	 * cacheUpdater applies each tile change as it happens.
+	 */
 	private void updateEnvironmentCache() {
 		try {
-			long currentTime = System.currentTimeMillis();
-			if (currentTime - lastEnvironmentUpdate > CACHE_VALIDITY_MS) {
-				environmentCache.clear();
-				
-				try {
-					Map<Position, Tile> allTiles = env.getTiles();
-					if (allTiles != null) {
-						for (Map.Entry<Position, Tile> entry : allTiles.entrySet()) {
-							Position pos = entry.getKey();
-							Tile tile = entry.getValue();
-							if (tile != null) {
-								environmentCache.put(pos, tile.getStatus());
-							}
-						}
-					}
-				} catch (Exception e) {
-					// If full environment access fails, use what we know
-					environmentCache.putAll(knownTiles);
+			if (environmentCache == null) {
+				environmentCache = new TileStatus[env.getCellCount()];
+				for (int cell = 0; cell < environmentCache.length; cell++) {
+					environmentCache[cell] = env.getTileStatus(cell);
 				}
-				
-				lastEnvironmentUpdate = currentTime;
+				pathCache.clear();
+				env.addListener(cacheUpdater);
 			}
+			cachedTileVersion = env.getTileVersion();
 		} catch (Exception e) {
-			System.out.println("Error updating environment cache: " + e.getMessage());
+			log.error("Error updating environment cache: %s", e.getMessage());
 		}
 	}
 	
-	private List<Position> getOptimalTargetOrder(Position start, List<Position> targets) {
+	/* Creates the distance field cache once and relaxes it when a door opens. */
+	private void updateDistanceFields() {
+		if (distanceFields == null) {
+			distanceFields = new DistanceFields(env);
+			tourPlanner = new TourPlanner(distanceFields, cell -> isPassable(env.getTileStatus(cell)));
+		} else {
+			distanceFields.update();
+		}
+	}
+
+	private List<Position> getOptimalTargetOrder(Position start, List<Position> targets, Position end) {
 		if (targets == null || targets.size() <= 1) {
 			return targets;
 		}
 		
 		try {
-			// Use nearest neighbor with 2-opt improvement for small sets
-			List<Position> orderedTargets = new ArrayList<>();
-			Set<Position> remaining = new HashSet<>(targets);
-			Position current = start;
-			
-			while (!remaining.isEmpty()) {
-				Position nearest = null;
-				int shortestDistance = Integer.MAX_VALUE;
-				
-				for (Position target : remaining) {
-					int distance = estimateDistance(current, target);
-					if (distance < shortestDistance) {
-						shortestDistance = distance;
-						nearest = target;
-					}
-				}
-				
-				if (nearest != null) {
-					orderedTargets.add(nearest);
-					remaining.remove(nearest);
-					current = nearest;
-				} else {
-					break;
-				}
+			// Order by true walking distance, exactly for small sets
+			updateDistanceFields();
+			int[] cells = new int[targets.size()];
+			for (int i = 0; i < cells.length; i++) {
+				cells[i] = env.getCellId(targets.get(i));
 			}
+			int endCell = (end != null) ? env.getCellId(end) : Environment.NO_CELL;
+			int[] order = tourPlanner.order(env.getCellId(start), cells, endCell);
 			
-			// Simple 2-opt improvement for small sets
-			if (orderedTargets.size() <= 5) {
-				orderedTargets = improve2Opt(start, orderedTargets);
+			List<Position> orderedTargets = new ArrayList<>(order.length);
+			for (int cell : order) {
+				orderedTargets.add(env.getPosition(cell));
 			}
-			
 			return orderedTargets;
 		} catch (Exception e) {
-			System.out.println("Error in getOptimalTargetOrder: " + e.getMessage());
+			log.error("Error in getOptimalTargetOrder: %s", e.getMessage());
 			return targets;
 		}
 	}
 	
-	private List<Position> improve2Opt(Position start, List<Position> tour) {
-		if (tour.size() <= 2) return tour;
-		
-		try {
-			List<Position> bestTour = new ArrayList<>(tour);
-			int bestDistance = calculateTourDistance(start, tour);
-			
-			for (int i = 0; i < tour.size() - 1; i++) {
-				for (int j = i + 2; j < tour.size(); j++) {
-					List<Position> newTour = new ArrayList<>(tour);
-					// Reverse the segment between i+1 and j
-					List<Position> segment = newTour.subList(i + 1, j + 1);
-					java.util.Collections.reverse(segment);
-					
-					int newDistance = calculateTourDistance(start, newTour);
-					if (newDistance < bestDistance) {
-						bestDistance = newDistance;
-						bestTour = newTour;
-					}
-				}
-			}
-			
-			return bestTour;
-		} catch (Exception e) {
-			return tour;
-		}
-	}
-	
-	private int calculateTourDistance(Position start, List<Position> tour) {
-		if (tour.isEmpty()) return 0;
-		
-		int totalDistance = estimateDistance(start, tour.get(0));
-		for (int i = 0; i < tour.size() - 1; i++) {
-			totalDistance += estimateDistance(tour.get(i), tour.get(i + 1));
-		}
-		return totalDistance;
-	}
-	
 	private boolean isStuckAdvanced(Position currentPos) {
 		try {
 			// Progress-based stuck detection
@@ -1322,20 +1190,44 @@ public class Robot {
 			// Consider stuck if no progress for many iterations
 			boolean progressStuck = progressStuckCounter > 15;
 			
-			// Also check position-based stuck detection (existing logic)
-			boolean positionStuck = false;
-			if (recentPositions.size() >= 6) {
-				Set<Position> uniquePositions = new HashSet<>(
-					recentPositions.subList(recentPositions.size() - 6, recentPositions.size()));
-				positionStuck = uniquePositions.size() <= 2;
-			}
+			// Also stuck if this exact state keeps coming back
+			boolean cycleStuck = currentStateVisits >= CYCLE_VISITS;
 			
-			return progressStuck || positionStuck;
+			return progressStuck || cycleStuck;
 		} catch (Exception e) {
 			return false;
 		}
 	}
 	
+	/*
+	 * Adds the current state to the window, dropping the oldest once it is
+	 * full, and returns how often the state occurs in the window. Picking
+	 * up a chip or key changes the hash for good, so progress ends a loop
+	 * without any reset.
+	 */
+	private int recordStateVisit(int cell) {
+		if (historySize == STATE_WINDOW) {
+			stateVisits.computeIfPresent(recentStates[historyHead], (state, visits) -> visits > 1 ? visits - 1 : null);
+		} else {
+			historySize++;
+		}
+		long state = env.getStateHash();
+		recentStates[historyHead] = state;
+		recentCells[historyHead] = cell;
+		historyHead = (historyHead + 1) % STATE_WINDOW;
+		return stateVisits.merge(state, 1, Integer::sum);
+	}
+
+	/* True if the robot decided on cell in one of the last count time steps. */
+	private boolean wasRecentlyAt(int cell, int count) {
+		for (int i = 1; i <= Math.min(count, historySize); i++) {
+			if (recentCells[(historyHead - i + STATE_WINDOW) % STATE_WINDOW] == cell) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	private String getCacheKey(Position start, Position goal) {
 		return start.getRow() + "," + start.getCol() + "->" + goal.getRow() + "," + goal.getCol();
 	}
@@ -1359,43 +1251,6 @@ public class Robot {
 		}
 	}
 
-	/**
-	 * Inner class representing a node in the A* pathfinding algorithm.
-	 */
-	private static class Node {
-		Position position;
-		Node parent;
-		String direction;
-		int gScore = Integer.MAX_VALUE;
-		int fScore = Integer.MAX_VALUE;
-
-		/**
-		 * Constructs a new Node for pathfinding.
-		 *
-		 * @param position The position this node represents
-		 */
-		Node(Position position) {
-			this.position = position;
-			this.parent = null;
-			this.direction = null;
-		}
-
-		@Override
-		public boolean equals(Object obj) {
-			if (this == obj)
-				return true;
-			if (obj == null || getClass() != obj.getClass())
-				return false;
-			Node node = (Node) obj;
-			return position != null && position.equals(node.position);
-		}
-
-		@Override
-		public int hashCode() {
-			return position != null ? position.hashCode() : 0;
-		}
-	}
-
 	@Override
 	public String toString() {
 		return "Robot [pos=" + env.getRobotPosition(this) + "]";
@@ -0,0 +1,129 @@
+package edu.ncsu.csc411.ps06.agent;
+
+import edu.ncsu.csc411.ps06.utils.Histogram;
+
+/**
+ * What a Robot has spent its time on: how long each getAction call took,
+ * and how often it planned, searched and got stuck. The up-front solve
+ * and the distance field searches are also timed on their own, since they
+ * land in a few getAction calls, mostly the first, and would otherwise
+ * only show as outliers there. The Robot updates these as it goes; the
+ * counts are plain fields, so keeping them costs a few increments and two
+ * clock reads per time step.
+ *
+ * Not thread-safe; read it from the thread that runs the Robot, or after
+ * that thread has finished.
+ */
+public final class RobotMetrics {
+  private final Histogram actionNanos = new Histogram();
+  private long plans;
+  private long searches;
+  private long nodesExpanded;
+  private long cacheHits;
+  private long cacheMisses;
+  private long replans;
+  private long stuckDetections;
+  private long solveNanos;
+  private long solverStates;
+  private long fieldBuilds;
+  private long fieldBuildNanos;
+
+  void recordAction(long nanos) {
+    this.actionNanos.record(nanos);
+  }
+
+  void countPlan() {
+    this.plans++;
+  }
+
+  void countSearch(int nodes) {
+    this.searches++;
+    this.nodesExpanded += nodes;
+  }
+
+  void countCacheLookup(boolean hit) {
+    if (hit)
+      this.cacheHits++;
+    else
+      this.cacheMisses++;
+  }
+
+  void countReplan() {
+    this.replans++;
+  }
+
+  void countStuck() {
+    this.stuckDetections++;
+  }
+
+  void recordSolve(long nanos, int states) {
+    this.solveNanos += nanos;
+    this.solverStates += states;
+  }
+
+  /* Takes the running totals of the Robot's DistanceFields. */
+  void setFieldBuilds(long builds, long nanos) {
+    this.fieldBuilds = builds;
+    this.fieldBuildNanos = nanos;
+  }
+
+  /** @return the latency of every getAction call, in nanoseconds */
+  public Histogram getActionNanos() {
+    return this.actionNanos;
+  }
+
+  /** @return the time steps on which the robot had no plan and made one */
+  public long getPlans() {
+    return this.plans;
+  }
+
+  /** @return the A* searches run */
+  public long getSearches() {
+    return this.searches;
+  }
+
+  /** @return the cells expanded by all A* searches together */
+  public long getNodesExpanded() {
+    return this.nodesExpanded;
+  }
+
+  /** @return the path lookups answered from the path cache */
+  public long getCacheHits() {
+    return this.cacheHits;
+  }
+
+  /** @return the path lookups the path cache could not answer */
+  public long getCacheMisses() {
+    return this.cacheMisses;
+  }
+
+  /** @return the plans and solutions dropped before they were finished */
+  public long getReplans() {
+    return this.replans;
+  }
+
+  /** @return the times stuck or loop detection fired */
+  public long getStuckDetections() {
+    return this.stuckDetections;
+  }
+
+  /** @return the time the up-front PuzzleSolver search took, in nanoseconds */
+  public long getSolveNanos() {
+    return this.solveNanos;
+  }
+
+  /** @return the search states the up-front PuzzleSolver expanded */
+  public long getSolverStates() {
+    return this.solverStates;
+  }
+
+  /** @return the distance fields built by breadth-first search */
+  public long getFieldBuilds() {
+    return this.fieldBuilds;
+  }
+
+  /** @return the time spent building distance fields, in nanoseconds */
+  public long getFieldBuildNanos() {
+    return this.fieldBuildNanos;
+  }
+}
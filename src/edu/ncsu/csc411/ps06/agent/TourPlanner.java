@@ -0,0 +1,359 @@
+package edu.ncsu.csc411.ps06.agent;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import edu.ncsu.csc411.ps06.environment.Environment;
+
+/**
+ * Orders a set of targets (chips, keys, doors) so that visiting them from
+ * a start cell, and optionally finishing at an end cell such as the goal,
+ * takes as few moves as possible.
+ *
+ * Distances are true walking distances read from a DistanceFields. Two
+ * cells the fields keep apart are joined through a single closed door the
+ * robot could open now, at the distance of walking to the door and on
+ * from it; targets that need more than one such door count as
+ * unreachable until one of them opens.
+ *
+ * Up to EXACT_LIMIT targets are ordered exactly with the Held-Karp dynamic
+ * program. Larger sets start from a nearest-neighbour tour and are improved
+ * with 2-opt and Or-opt moves until neither finds a shorter tour. Every
+ * node of a tour needs its own distance field, so only the targets nearest
+ * the start are ordered that way, at most TOUR_LIMIT and never more than
+ * the fields can cache at once; the rest follow them nearest first and are
+ * ordered properly once the robot gets closer. Each field, the doors'
+ * included, is read once per order into a small matrix. Orders are cached
+ * per (start, remaining targets, end, openable doors) until the fields
+ * change.
+ *
+ * Not thread-safe; each Robot owns its own TourPlanner.
+ */
+public class TourPlanner {
+  private static final int EXACT_LIMIT = 12;
+  private static final int MAX_ORDERS = 128;
+  private static final int MAX_SEGMENT = 3;
+  private static final int TOUR_LIMIT = 32;
+
+  private final DistanceFields fields;
+  private final PathFinder.Passability canOpen;
+  private int fieldsVersion;
+  private int[] openable = new int[0];
+  private int openableCount;
+  // The cells of the order being planned and their distances via each door
+  private int[] cells;
+  private int[][] viaDoor;
+  private final Map<String, int[]> orders = new LinkedHashMap<String, int[]>(16, 0.75f, true) {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, int[]> eldest) {
+      return size() > MAX_ORDERS;
+    }
+  };
+
+  /**
+   * Builds a TourPlanner that measures distances on the given fields.
+   * @param fields - the distance fields of the map
+   * @param canOpen - decides which closed door cells may be walked through
+   */
+  public TourPlanner(DistanceFields fields, PathFinder.Passability canOpen) {
+    this.fields = fields;
+    this.canOpen = canOpen;
+    this.fieldsVersion = fields.getVersion();
+  }
+
+  /**
+   * Orders the targets to minimize the moves needed to visit all of them
+   * from start and then, if end is a cell, to walk on to end. Targets that
+   * cannot be reached from start are placed last, in their given order.
+   * @param start - the cell id the tour starts on
+   * @param targets - the cell ids to visit; not modified
+   * @param end - the cell id the tour must finish on, or Environment.NO_CELL
+   * @return the targets in visiting order
+   */
+  public int[] order(int start, int[] targets, int end) {
+    if (targets.length <= 1)
+      return targets.clone();
+
+    if (this.fieldsVersion != this.fields.getVersion()) {
+      this.orders.clear();
+      this.fieldsVersion = this.fields.getVersion();
+    }
+    findOpenableDoors();
+    String key = cacheKey(start, targets, end);
+    int[] cached = this.orders.get(key);
+    if (cached != null)
+      return cached.clone();
+
+    // Cell 0 is start, cells 1..targets.length the targets, the last is end
+    int last = targets.length + 1;
+    this.cells = new int[last + 1];
+    this.cells[0] = start;
+    System.arraycopy(targets, 0, this.cells, 1, targets.length);
+    this.cells[last] = end;
+    this.viaDoor = null;
+
+    // Split off the targets the robot cannot currently get to
+    int[] fromStart = distancesFrom(0);
+    int[] reachable = new int[targets.length];
+    int[] unreachable = new int[targets.length];
+    int reachableCount = 0;
+    int unreachableCount = 0;
+    for (int i = 1; i < last; i++) {
+      if (fromStart[i] < DistanceFields.UNREACHABLE)
+        reachable[reachableCount++] = i;
+      else
+        unreachable[unreachableCount++] = this.cells[i];
+    }
+
+    // Past the tour limit, tour the nearest targets and queue the rest after them
+    int n = reachableCount;
+    int limit = Math.min(TOUR_LIMIT, this.fields.getCapacity() - 1);
+    boolean hasEnd = fromStart[last] < DistanceFields.UNREACHABLE;
+    if (n > limit) {
+      long[] byDistance = new long[n];
+      for (int i = 0; i < n; i++)
+        byDistance[i] = (long) fromStart[reachable[i]] << 32 | reachable[i];
+      Arrays.sort(byDistance);
+      for (int i = 0; i < n; i++)
+        reachable[i] = (int) byDistance[i];
+      n = limit;
+      hasEnd = false;
+    }
+
+    // Node 0 is start, nodes 1..n are the targets, node n + 1 is the end
+    int[] nodes = new int[n + 2];
+    System.arraycopy(reachable, 0, nodes, 1, n);
+    nodes[n + 1] = last;
+    int[][] dist = new int[n + 2][n + 2];
+    for (int i = 0; i <= n; i++) {
+      int[] from = i == 0 ? fromStart : distancesFrom(nodes[i]);
+      for (int j = 1; j <= n; j++)
+        dist[i][j] = from[nodes[j]];
+      dist[i][n + 1] = hasEnd ? from[last] : 0;
+    }
+
+    int[] tour = n <= EXACT_LIMIT ? heldKarp(dist, n) : localSearch(dist, n);
+    int[] ordered = new int[targets.length];
+    for (int i = 0; i < reachableCount; i++)
+      ordered[i] = this.cells[i < n ? nodes[tour[i]] : reachable[i]];
+    System.arraycopy(unreachable, 0, ordered, reachableCount, unreachableCount);
+    this.cells = null;
+    this.viaDoor = null;
+
+    this.orders.put(key, ordered);
+    return ordered.clone();
+  }
+
+  /*
+   * The distance from cells[from] to every cell of the order: direct, or
+   * the shortest way through one openable door. The field of cells[from]
+   * is read once and not held, since the next get() may reuse it.
+   */
+  private int[] distancesFrom(int from) {
+    int[] field = this.fields.get(this.cells[from]);
+    int[] row = new int[this.cells.length];
+    for (int to = 0; to < row.length; to++)
+      row[to] = this.cells[to] == Environment.NO_CELL ? DistanceFields.UNREACHABLE : field[this.cells[to]];
+    for (int to = 0; to < row.length; to++) {
+      if (row[to] < DistanceFields.UNREACHABLE || this.cells[to] == Environment.NO_CELL)
+        continue;
+      if (this.viaDoor == null)
+        readDoorDistances();
+      for (int door = 0; door < this.openableCount; door++) {
+        int[] through = this.viaDoor[door];
+        if (through[from] < DistanceFields.UNREACHABLE && through[to] < DistanceFields.UNREACHABLE)
+          row[to] = Math.min(row[to], through[from] + through[to]);
+      }
+    }
+    return row;
+  }
+
+  /*
+   * Copies the distance from every openable door to every cell of the
+   * order, so each door's field is read once per order() however many
+   * pairs of cells go through it.
+   */
+  private void readDoorDistances() {
+    this.viaDoor = new int[this.openableCount][this.cells.length];
+    for (int door = 0; door < this.openableCount; door++) {
+      int[] field = this.fields.get(this.openable[door]);
+      for (int i = 0; i < this.cells.length; i++)
+        this.viaDoor[door][i] = this.cells[i] == Environment.NO_CELL ? DistanceFields.UNREACHABLE : field[this.cells[i]];
+    }
+  }
+
+  private void findOpenableDoors() {
+    int closed = this.fields.getClosedDoorCount();
+    if (this.openable.length < closed)
+      this.openable = new int[closed];
+    this.openableCount = 0;
+    for (int i = 0; i < closed; i++) {
+      int door = this.fields.getClosedDoor(i);
+      if (this.canOpen.isPassable(door))
+        this.openable[this.openableCount++] = door;
+    }
+  }
+
+  /* Exact open-path TSP over nodes 1..n, finishing at node n + 1. */
+  private int[] heldKarp(int[][] dist, int n) {
+    int[] tour = new int[n];
+    if (n == 0)
+      return tour;
+    int full = (1 << n) - 1;
+    int[] cost = new int[(full + 1) * n];
+    byte[] parent = new byte[(full + 1) * n];
+    Arrays.fill(cost, Integer.MAX_VALUE);
+    for (int last = 0; last < n; last++)
+      cost[(1 << last) * n + last] = dist[0][last + 1];
+
+    for (int set = 1; set <= full; set++) {
+      for (int last = 0; last < n; last++) {
+        int current = cost[set * n + last];
+        if (current == Integer.MAX_VALUE || (set & (1 << last)) == 0)
+          continue;
+        for (int next = 0; next < n; next++) {
+          if ((set & (1 << next)) != 0)
+            continue;
+          int index = (set | (1 << next)) * n + next;
+          int candidate = add(current, dist[last + 1][next + 1]);
+          if (candidate < cost[index]) {
+            cost[index] = candidate;
+            parent[index] = (byte) last;
+          }
+        }
+      }
+    }
+
+    int best = 0;
+    int bestCost = Integer.MAX_VALUE;
+    for (int last = 0; last < n; last++) {
+      int total = add(cost[full * n + last], dist[last + 1][n + 1]);
+      if (total < bestCost) {
+        bestCost = total;
+        best = last;
+      }
+    }
+    for (int set = full, last = best, i = n - 1; i >= 0; i--) {
+      tour[i] = last + 1;
+      int previous = parent[set * n + last];
+      set &= ~(1 << last);
+      last = previous;
+    }
+    return tour;
+  }
+
+  /*
+   * Adds two path lengths, treating anything at or past UNREACHABLE as
+   * unreachable, so that a tour with several unreachable legs does not
+   * wrap around to a small or negative cost.
+   */
+  private static int add(int a, int b) {
+    long sum = (long) a + b;
+    return sum >= DistanceFields.UNREACHABLE ? DistanceFields.UNREACHABLE : (int) sum;
+  }
+
+  /* Nearest-neighbour tour over nodes 1..n polished by 2-opt and Or-opt. */
+  private int[] localSearch(int[][] dist, int n) {
+    int[] tour = new int[n];
+    boolean[] used = new boolean[n + 1];
+    for (int i = 0, current = 0; i < n; i++) {
+      int nearest = -1;
+      for (int node = 1; node <= n; node++) {
+        if (!used[node] && (nearest < 0 || dist[current][node] < dist[current][nearest]))
+          nearest = node;
+      }
+      used[nearest] = true;
+      tour[i] = nearest;
+      current = nearest;
+    }
+
+    boolean improved = true;
+    while (improved) {
+      improved = twoOpt(dist, tour) | orOpt(dist, tour);
+    }
+    return tour;
+  }
+
+  /* Reverses tour[i..j] wherever that shortens the path. */
+  private boolean twoOpt(int[][] dist, int[] tour) {
+    int n = tour.length;
+    int endNode = n + 1;
+    boolean improved = false;
+    for (int i = 0; i < n - 1; i++) {
+      int before = i == 0 ? 0 : tour[i - 1];
+      for (int j = i + 1; j < n; j++) {
+        int after = j == n - 1 ? endNode : tour[j + 1];
+        int delta = dist[before][tour[j]] + dist[tour[i]][after]
+            - dist[before][tour[i]] - dist[tour[j]][after];
+        if (delta < 0) {
+          for (int a = i, b = j; a < b; a++, b--) {
+            int swap = tour[a];
+            tour[a] = tour[b];
+            tour[b] = swap;
+          }
+          improved = true;
+        }
+      }
+    }
+    return improved;
+  }
+
+  /* Moves runs of up to MAX_SEGMENT targets wherever that shortens the path. */
+  private boolean orOpt(int[][] dist, int[] tour) {
+    int n = tour.length;
+    int endNode = n + 1;
+    boolean improved = false;
+    for (int length = 1; length <= MAX_SEGMENT && length < n; length++) {
+      for (int i = 0; i + length <= n; i++) {
+        int first = tour[i];
+        int last = tour[i + length - 1];
+        int before = i == 0 ? 0 : tour[i - 1];
+        int after = i + length == n ? endNode : tour[i + length];
+        int removed = dist[before][first] + dist[last][after] - dist[before][after];
+
+        // Try each gap (k - 1, k) outside the segment
+        for (int k = 0; k <= n; k++) {
+          if (k >= i && k <= i + length)
+            continue;
+          int left = k == 0 ? 0 : tour[k - 1];
+          int right = k == n ? endNode : tour[k];
+          int added = dist[left][first] + dist[last][right] - dist[left][right];
+          if (added < removed) {
+            moveSegment(tour, i, length, k);
+            improved = true;
+            break;
+          }
+        }
+      }
+    }
+    return improved;
+  }
+
+  /* Moves tour[from..from+length) so that it sits just before index to. */
+  private static void moveSegment(int[] tour, int from, int length, int to) {
+    int[] segment = Arrays.copyOfRange(tour, from, from + length);
+    if (to < from) {
+      System.arraycopy(tour, to, tour, to + length, from - to);
+      System.arraycopy(segment, 0, tour, to, length);
+    } else {
+      System.arraycopy(tour, from + length, tour, from, to - from - length);
+      System.arraycopy(segment, 0, tour, to - length, length);
+    }
+  }
+
+  private String cacheKey(int start, int[] targets, int end) {
+    int[] sorted = targets.clone();
+    Arrays.sort(sorted);
+    StringBuilder key = new StringBuilder();
+    key.append(start).append(':').append(end);
+    for (int target : sorted)
+      key.append(',').append(target);
+    key.append('|');
+    for (int i = 0; i < this.openableCount; i++)
+      key.append(this.openable[i]).append(',');
+    return key.toString();
+  }
+}
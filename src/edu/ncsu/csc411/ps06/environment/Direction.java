@@ -0,0 +1,68 @@
+package edu.ncsu.csc411.ps06.environment;
+
+/**
+ * The four neighbors of a Position. The ordinal of each Direction is
+ * the index used by the array-filling sensing methods in Environment,
+ * so callers can loop over 0..COUNT-1 without allocating.
+ */
+public enum Direction {
+  /** The neighbor above, reached by Action.MOVE_UP */
+  UP(-1, 0, Action.MOVE_UP, "above"),
+  /** The neighbor below, reached by Action.MOVE_DOWN */
+  DOWN(1, 0, Action.MOVE_DOWN, "below"),
+  /** The neighbor to the left, reached by Action.MOVE_LEFT */
+  LEFT(0, -1, Action.MOVE_LEFT, "left"),
+  /** The neighbor to the right, reached by Action.MOVE_RIGHT */
+  RIGHT(0, 1, Action.MOVE_RIGHT, "right");
+
+  /** The number of directions, and the length of neighbor buffers. */
+  public static final int COUNT = 4;
+  private static final Direction[] VALUES = values();
+
+  private final int rowOffset;
+  private final int colOffset;
+  private final Action action;
+  private final String key;
+
+  Direction(int rowOffset, int colOffset, Action action, String key) {
+    this.rowOffset = rowOffset;
+    this.colOffset = colOffset;
+    this.action = action;
+    this.key = key;
+  }
+
+  /**
+   * Returns the Direction with the given index without allocating,
+   * unlike values().
+   * @param index - 0 to COUNT - 1
+   * @return the Direction
+   */
+  public static Direction get(int index) { return VALUES[index]; }
+
+  /**
+   * Returns the Direction an Action moves in.
+   * @param action - the Action
+   * @return the Direction, or null for Action.DO_NOTHING
+   */
+  public static Direction of(Action action) {
+    switch (action) {
+      case MOVE_UP: return UP;
+      case MOVE_DOWN: return DOWN;
+      case MOVE_LEFT: return LEFT;
+      case MOVE_RIGHT: return RIGHT;
+      default: return null;
+    }
+  }
+
+  /** @return the change in row when moving this way */
+  public int getRowOffset() { return rowOffset; }
+
+  /** @return the change in column when moving this way */
+  public int getColOffset() { return colOffset; }
+
+  /** @return the Action that moves the robot this way */
+  public Action getAction() { return action; }
+
+  /** @return the key used for this neighbor by getNeighborTiles */
+  public String getKey() { return key; }
+}
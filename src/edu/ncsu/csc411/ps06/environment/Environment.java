@@ -1,8 +1,11 @@
 package edu.ncsu.csc411.ps06.environment;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import edu.ncsu.csc411.ps06.agent.Robot;
 
@@ -17,14 +20,44 @@ import edu.ncsu.csc411.ps06.agent.Robot;
  * DO NOT MODIFY.
  */
 public class Environment {
+  /** Marks a missing neighbor in the adjacency table. */
+  public static final int NO_CELL = -1;
+
+  private static final TileStatus[] STATUSES = TileStatus.values();
+  private static final Tile[] TILES = new Tile[STATUSES.length];
+  static {
+    for (TileStatus status : STATUSES) {
+      TILES[status.ordinal()] = new Tile(status);
+    }
+  }
+
+  // The parsed map, which owns the Position graph shared with other
+  // Environments built from it
+  private final MapTemplate template;
   private Position[][] positions;
+  // Positions by cell id, and each cell's neighbor ids by Direction ordinal
+  private Position[] cells;
+  private int[][] adjacency;
+  // The source of truth for the map: one TileStatus ordinal per cell,
+  // indexed by row * cols + col.
+  private byte[] grid;
+  // Number of cells currently holding each TileStatus, indexed by ordinal
+  private int[] statusCounts;
+  // Compatibility view for getTiles(), rebuilt lazily after the grid changes
   private Map<Position, Tile> tiles;
+  // Change counters; agents compare them to tell when their copies are stale
+  private int tileVersion;
+  private int moveVersion;
+  // Zobrist hash of the tiles, the robots' cells and their keys
+  private long stateHash;
   private ArrayList<Robot> robots;
   private Map<Robot, Position> robotPositions;
-  private Map<Robot, ArrayList<String>> robotHoldings;
+  private Map<Robot, Inventory> robotHoldings;
   private int rows, cols;
   private Position target;
   private Map<TileStatus, ArrayList<Position>> envPositions;
+  // Copied on write so that a listener can remove itself while being called
+  private final List<EnvironmentListener> listeners = new CopyOnWriteArrayList<>();
 
   /**
    * Calls Environment(int rows, int columns).
@@ -41,44 +74,7 @@ public class Environment {
    * @param columns 0 the number of columns
    */
 	public Environment(int rows, int columns) {
-		this.rows = rows;
-		this.cols = columns;
-		this.positions = new Position[this.rows][this.cols];
-		this.tiles = new HashMap<Position, Tile>();
-		this.robots = new ArrayList<Robot>();
-		this.robotPositions = new HashMap<Robot, Position>();
-		this.robotHoldings = new HashMap<Robot, ArrayList<String>>();
-		buildEnvPositionMap();
-		for(int row = 0; row < rows; row++) {
-			for (int col = 0; col < cols; col++) {
-				// Create a new position at (row, col)
-				Position p = new Position(row, col);
-				this.positions[row][col] = p;
-
-				// And set it to BLANK
-				Tile t = new Tile(TileStatus.BLANK);
-				// Set the newly made dirty tile t to position p
-				this.tiles.put(positions[row][col], t);
-			}
-		}
-
-		// Establish neighbors for each Position
-		for(int row = 0; row < rows; row++) {
-			for (int col = 0; col < cols; col++) {
-			  if (row > 0) {
-          this.positions[row][col].setAbove(positions[row - 1][col]);
-        }
-        if (row < this.rows - 1) {
-          this.positions[row][col].setBelow(positions[row + 1][col]);
-        }
-        if (col > 0) {
-          this.positions[row][col].setLeft(positions[row][col - 1]);
-        }
-        if (col < this.cols - 1) {
-          this.positions[row][col].setRight(positions[row][col + 1]);
-        }
-			}
-		}
+		this(MapTemplate.blank(rows, columns));
 	}
 
 	/** 
@@ -106,69 +102,89 @@ public class Environment {
    * @param map - the String array containing these values
    */
 	public Environment(String[][] map) {
-		this(map.length, map[0].length);
-		for (int row = 0; row < map.length; row++) {
-			for (int col = 0; col < map[row].length; col++) {
-				String tile = map[row][col];
-				Position p = this.positions[row][col];
-				switch(tile) {
-				case "ST": 
-					Robot robot = new Robot(this);
-					addRobot(robot, p);
-					this.tiles.put(p, new Tile(TileStatus.BLANK));
-					break;
-				case "BL": tiles.put(p, new Tile(TileStatus.BLANK)); break;
-				case "WL": tiles.put(p, new Tile(TileStatus.WALL)); break;
-				case "WA": tiles.put(p, new Tile(TileStatus.WATER)); break;
-				case "CH": 
-					this.tiles.put(p, new Tile(TileStatus.CHIP));
-					this.envPositions.get(TileStatus.CHIP).add(p);
-					break;
-				case "PL": 
-					this.tiles.put(p, new Tile(TileStatus.GOAL));
-					this.envPositions.get(TileStatus.GOAL).add(p);
-					this.target = p;
-					break;
-				case "DP":
-					this.tiles.put(p, new Tile(TileStatus.DOOR_GOAL)); 
-					this.envPositions.get(TileStatus.DOOR_GOAL).add(p);
-					break;
-				case "DG":
-					this.tiles.put(p, new Tile(TileStatus.DOOR_GREEN)); 
-					this.envPositions.get(TileStatus.DOOR_GREEN).add(p);
-					break;
-				case "DY":
-					this.tiles.put(p, new Tile(TileStatus.DOOR_YELLOW)); 
-					this.envPositions.get(TileStatus.DOOR_YELLOW).add(p);
-					break;
-				case "DB":
-					this.tiles.put(p, new Tile(TileStatus.DOOR_BLUE)); 
-					this.envPositions.get(TileStatus.DOOR_BLUE).add(p);
-					break;
-				case "DR":
-					this.tiles.put(p, new Tile(TileStatus.DOOR_RED)); 
-					this.envPositions.get(TileStatus.DOOR_RED).add(p);
-					break;
-				case "KG": 
-					this.tiles.put(p, new Tile(TileStatus.KEY_GREEN));
-					this.envPositions.get(TileStatus.KEY_GREEN).add(p);
-					break;
-				case "KY": 
-					this.tiles.put(p, new Tile(TileStatus.KEY_YELLOW));
-					this.envPositions.get(TileStatus.KEY_YELLOW).add(p);
-					break;
-				case "KB": 
-					this.tiles.put(p, new Tile(TileStatus.KEY_BLUE));
-					this.envPositions.get(TileStatus.KEY_BLUE).add(p);
-					break;
-				case "KR": 
-					this.tiles.put(p, new Tile(TileStatus.KEY_RED));
-					this.envPositions.get(TileStatus.KEY_RED).add(p);
-					break;
-				default: throw new IllegalArgumentException("Tile Not Found - " + tile);
-				}
-			}
+		this(MapTemplate.parse(map));
+	}
+
+	/**
+	 * Builds an Environment in the starting state of a parsed map. The
+	 * Position graph and adjacency table are shared with the template and
+	 * every other Environment built from it, so this only copies the
+	 * starting tiles and places a new Robot on each starting cell.
+	 * @param template - the parsed map
+	 */
+	public Environment(MapTemplate template) {
+		this.template = template;
+		this.rows = template.getRows();
+		this.cols = template.getCols();
+		this.positions = template.positions();
+		this.cells = template.cells();
+		this.adjacency = template.adjacency();
+		this.grid = new byte[this.rows * this.cols];
+		this.statusCounts = new int[STATUSES.length];
+		this.robots = new ArrayList<Robot>();
+		this.robotPositions = new HashMap<Robot, Position>();
+		this.robotHoldings = new HashMap<Robot, Inventory>();
+		buildEnvPositionMap();
+		reset();
+	}
+
+	/**
+	 * Restores the starting state of the map this Environment was built
+	 * from: every tile, envPositions, and the robots. The old robots are
+	 * removed and a new Robot, with an empty inventory, is placed on each
+	 * starting cell. Nothing is re-parsed and no Positions are rebuilt.
+	 */
+	public void reset() {
+		System.arraycopy(this.template.initialGrid(), 0, this.grid, 0, this.grid.length);
+		System.arraycopy(this.template.initialCounts(), 0, this.statusCounts, 0, this.statusCounts.length);
+		this.tiles = null;
+		this.tileVersion++;
+		this.moveVersion++;
+		// The robots add their keys as they are placed below
+		this.stateHash = this.template.initialTileHash();
+
+		this.target = null;
+		for (ArrayList<Position> list : this.envPositions.values()) {
+			list.clear();
+		}
+		for (int cell : this.template.trackedCells()) {
+			TileStatus status = STATUSES[this.grid[cell]];
+			this.envPositions.get(status).add(this.cells[cell]);
+			if (status == TileStatus.GOAL)
+				this.target = this.cells[cell];
+		}
+
+		this.robots.clear();
+		this.robotPositions.clear();
+		this.robotHoldings.clear();
+		for (int i = 0; i < this.template.getStartCount(); i++) {
+			addRobot(new Robot(this), this.cells[this.template.getStartCell(i)]);
 		}
+		for (EnvironmentListener listener : this.listeners) {
+			listener.environmentReset();
+		}
+	}
+
+	/**
+	 * Registers a listener to be told about every tile change and robot
+	 * move from now on.
+	 * @param listener - the listener to add
+	 */
+	public void addListener(EnvironmentListener listener) {
+		this.listeners.add(listener);
+	}
+
+	/**
+	 * Stops telling a listener about changes.
+	 * @param listener - the listener to remove
+	 */
+	public void removeListener(EnvironmentListener listener) {
+		this.listeners.remove(listener);
+	}
+
+	/** @return the parsed map this Environment was built from */
+	public MapTemplate getTemplate() {
+		return this.template;
 	}
 
 	private void buildEnvPositionMap() {
@@ -187,18 +203,168 @@ public class Environment {
 	}
 
 	/* Traditional Getters */
-	protected TileStatus getTileStatus(Position p) { return tiles.get(p).getStatus(); }
+	protected TileStatus getTileStatus(Position p) { return getTileStatus(p.getRow(), p.getCol()); }
 	public Position getRobotPosition(Robot robot) { return this.robotPositions.get(robot); }
 	public Map<TileStatus, ArrayList<Position>> getEnvironmentPositions() { return this.envPositions; }
-	public Map<Position, Tile> getTiles() { return tiles; }
 	public ArrayList<Robot> getRobots() { return this.robots; }
 	public int getRows() { return this.rows; }
 	public int getCols() { return this.cols; }
 
+	/**
+	 * Returns the TileStatus stored at [row][col]. Callers are expected to
+	 * pass coordinates within the environment.
+	 * @param row - the row
+	 * @param col - the column
+	 * @return the status of that tile
+	 */
+	public TileStatus getTileStatus(int row, int col) {
+		return STATUSES[this.grid[row * this.cols + col]];
+	}
+
+	/**
+	 * Returns the TileStatus of the cell with the given id.
+	 * @param cell - a cell id from getCellId or the adjacency table
+	 * @return the status of that tile
+	 */
+	public TileStatus getTileStatus(int cell) {
+		return STATUSES[this.grid[cell]];
+	}
+
+	/**
+	 * Returns the cell id of [row][col], which is row * cols + col.
+	 * @param row - the row
+	 * @param col - the column
+	 * @return the cell id
+	 */
+	public int getCellId(int row, int col) {
+		return row * this.cols + col;
+	}
+
+	/**
+	 * Returns the cell id of any Position with coordinates inside the
+	 * environment, including ones not created by this Environment.
+	 * @param p - the Position
+	 * @return the cell id
+	 */
+	public int getCellId(Position p) {
+		return p.getRow() * this.cols + p.getCol();
+	}
+
+	/**
+	 * Returns this Environment's Position for a cell id.
+	 * @param cell - the cell id
+	 * @return the Position
+	 */
+	public Position getPosition(int cell) {
+		return this.cells[cell];
+	}
+
+	/** @return the number of cells, one more than the largest cell id */
+	public int getCellCount() {
+		return this.cells.length;
+	}
+
+	/**
+	 * Returns the precomputed adjacency table: getAdjacency()[cell][d] is
+	 * the id of the neighbor of cell in Direction.get(d), or NO_CELL at the
+	 * edge of the environment. The table is shared and must not be modified.
+	 * @return the adjacency table
+	 */
+	public int[][] getAdjacency() {
+		return this.adjacency;
+	}
+
+	private Tile getTile(Position p) {
+		return TILES[this.grid[p.getRow() * this.cols + p.getCol()]];
+	}
+
+	private void setTileStatus(Position p, TileStatus status) {
+		int index = p.getRow() * this.cols + p.getCol();
+		this.stateHash ^= Zobrist.tile(index, STATUSES[this.grid[index]]) ^ Zobrist.tile(index, status);
+		this.statusCounts[this.grid[index]]--;
+		this.statusCounts[status.ordinal()]++;
+		this.grid[index] = (byte) status.ordinal();
+		this.tiles = null;
+		this.tileVersion++;
+		for (EnvironmentListener listener : this.listeners) {
+			listener.tileChanged(index, status);
+		}
+	}
+
+	/**
+	 * Returns a counter that changes every time any tile changes status.
+	 * A Robot's inventory only changes together with a tile (a key picked
+	 * up, a door opened), so anything derived from the tiles or the
+	 * holdings stays valid for as long as this value is unchanged.
+	 * @return the tile version
+	 */
+	public int getTileVersion() {
+		return this.tileVersion;
+	}
+
+	/**
+	 * Returns a counter that changes every time a robot moves to a new
+	 * Position.
+	 * @return the move version
+	 */
+	public int getMoveVersion() {
+		return this.moveVersion;
+	}
+
+	/**
+	 * Returns a 64-bit Zobrist hash of the whole state of the simulation:
+	 * the status of every tile, the cell of every robot and the keys each
+	 * robot holds. Two equal states always hash the same, and a state
+	 * that differs in any of these (the same cell with a key more, or a
+	 * door now open) almost certainly hashes differently, so the hash can
+	 * key a transposition table or detect a robot repeating itself. It is
+	 * updated with every change, so reading it is constant time; see
+	 * Zobrist for how it is built.
+	 * @return the state hash
+	 */
+	public long getStateHash() {
+		return this.stateHash;
+	}
+
+	/**
+	 * Returns how many tiles currently have the given status. The counts
+	 * are maintained as tiles change, so this is constant time.
+	 * @param status - the TileStatus to count
+	 * @return the number of tiles with that status
+	 */
+	public int getTileCount(TileStatus status) {
+		return this.statusCounts[status.ordinal()];
+	}
+
+	/**
+	 * Returns a read-only Map of every Position to its Tile. The grid is the
+	 * source of truth; this view is only materialized on demand and is
+	 * rebuilt the next time it is requested after a tile changes, so
+	 * per-step code should prefer getTileStatus.
+	 * @return a Map (dictionary) of Positions to Tiles
+	 */
+	public Map<Position, Tile> getTiles() {
+		if (this.tiles == null) {
+			Map<Position, Tile> view = new HashMap<Position, Tile>(this.grid.length * 4 / 3 + 1);
+			for (int row = 0; row < rows; row++) {
+				for (int col = 0; col < cols; col++) {
+					Position p = positions[row][col];
+					view.put(p, getTile(p));
+				}
+			}
+			this.tiles = Collections.unmodifiableMap(view);
+		}
+		return this.tiles;
+	}
+
 	protected void addRobot(Robot robot, Position p) {
+		this.stateHash ^= Zobrist.robot(this.robots.size(), getCellId(p));
 		this.robotPositions.put(robot, p);
-		this.robotHoldings.put(robot, new ArrayList<String>());
+		this.robotHoldings.put(robot, new Inventory());
 		this.robots.add(robot);
+		for (EnvironmentListener listener : this.listeners) {
+			listener.robotMoved(robot, NO_CELL, getCellId(p));
+		}
 	}
 
 	/**
@@ -214,18 +380,18 @@ public class Environment {
 		Map<String, Tile> neighbors = new HashMap<String, Tile>();
 
 		Position robotPos = getRobotPosition(robot);
-		neighbors.put("self", tiles.get(robotPos));
+		neighbors.put("self", getTile(robotPos));
 		if(robotPos.getAbove() != null) {
-			neighbors.put("above", tiles.get(robotPos.getAbove()));
+			neighbors.put("above", getTile(robotPos.getAbove()));
 		}
 		if(robotPos.getBelow() != null) {
-			neighbors.put("below", tiles.get(robotPos.getBelow()));
+			neighbors.put("below", getTile(robotPos.getBelow()));
 		}
 		if(robotPos.getLeft() != null) {
-			neighbors.put("left", tiles.get(robotPos.getLeft()));
+			neighbors.put("left", getTile(robotPos.getLeft()));
 		}
 		if(robotPos.getRight() != null) {
-			neighbors.put("right", tiles.get(robotPos.getRight()));
+			neighbors.put("right", getTile(robotPos.getRight()));
 		}
 
 		return neighbors;
@@ -258,6 +424,40 @@ public class Environment {
 		
 		return neighbors;
 	}
+
+	/**
+   * An allocation-free alternative to getNeighborPositions. Fills out,
+   * indexed by Direction ordinal, with the neighbors of p, leaving null
+   * wherever that neighbor would be outside the environment.
+   * @param p - the Position to center this method call on
+   * @param out - an array of at least Direction.COUNT elements to fill
+   */
+	public void fillNeighborPositions(Position p, Position[] out) {
+		out[Direction.UP.ordinal()] = p.getAbove();
+		out[Direction.DOWN.ordinal()] = p.getBelow();
+		out[Direction.LEFT.ordinal()] = p.getLeft();
+		out[Direction.RIGHT.ordinal()] = p.getRight();
+	}
+
+	/**
+   * An allocation-free alternative to getNeighborTiles. Fills out,
+   * indexed by Direction ordinal, with the TileStatus of each tile around
+   * the Robot, leaving null wherever that tile would be outside the
+   * environment.
+   * @param robot - the robot to center the method around
+   * @param out - an array of at least Direction.COUNT elements to fill
+   */
+	public void fillNeighborTiles(Robot robot, TileStatus[] out) {
+		Position robotPos = getRobotPosition(robot);
+		out[Direction.UP.ordinal()] = neighborStatus(robotPos.getAbove());
+		out[Direction.DOWN.ordinal()] = neighborStatus(robotPos.getBelow());
+		out[Direction.LEFT.ordinal()] = neighborStatus(robotPos.getLeft());
+		out[Direction.RIGHT.ordinal()] = neighborStatus(robotPos.getRight());
+	}
+
+	private TileStatus neighborStatus(Position p) {
+		return p == null ? null : getTileStatus(p);
+	}
 	
 	/** 
    * Returns the Position of the DOOR_GOAL tile.
@@ -272,23 +472,25 @@ public class Environment {
    * @return an integer
    */
 	public int getNumRemainingChips() {
-		int count = 0;
-		for (int row = 0; row < rows; row++) {
-			for (int col = 0; col < cols; col++) {
-				Position p = positions[row][col];
-				if (this.tiles.get(p).getStatus() == TileStatus.CHIP)
-					count++;
-			}
-		}
-		return count;
+		return getTileCount(TileStatus.CHIP);
 	}
 
 	/** 
    * Returns the inventory of the Robot parameter.
    * @param robot - the Robot whose inventory we are pulling
-   * @return an ArrayList of the Robot's inventory
+   * @return a read-only List of the Robot's inventory
    */
-	public ArrayList<String> getRobotHoldings(Robot robot) {
+	public List<String> getRobotHoldings(Robot robot) {
+		return this.robotHoldings.get(robot).asList();
+	}
+
+	/** 
+   * Returns the inventory of the Robot parameter as key counts and a
+   * bitmask, which is cheaper to query than getRobotHoldings.
+   * @param robot - the Robot whose inventory we are pulling
+   * @return the Robot's Inventory
+   */
+	public Inventory getRobotInventory(Robot robot) {
 		return this.robotHoldings.get(robot);
 	}
 	
@@ -302,10 +504,13 @@ public class Environment {
 	 * having collected all the chips.
 	 */
 	protected boolean validPos(int row, int col, Robot robot) {
+		// The grid is flat, so an out-of-range column would silently
+		// wrap onto the neighboring row; reject it before indexing.
+		if (row < 0 || row >= this.rows || col < 0 || col >= this.cols)
+			return false;
 		try {
-			ArrayList<String> inventory = this.robotHoldings.get(robot);
-			Position p = positions[row][col];
-			TileStatus status = this.tiles.get(p).getStatus();
+			Inventory inventory = this.robotHoldings.get(robot);
+			TileStatus status = getTileStatus(row, col);
 
 			// Cannot pass through the final door without collecting all the chips
 			boolean doorGoalMissingChip = status == TileStatus.DOOR_GOAL && getNumRemainingChips() > 0;
@@ -313,17 +518,7 @@ public class Environment {
 				return false;
 			
 			// Door Bouncer - cannot pass through a given door without having its respective key
-			boolean doorBlueKey = status == TileStatus.DOOR_BLUE && !inventory.contains("KEY_BLUE");
-			if(doorBlueKey)
-				return false;
-			boolean doorGreenKey = status == TileStatus.DOOR_GREEN && !inventory.contains("KEY_GREEN");
-			if(doorGreenKey)
-				return false;
-			boolean doorRedKey = status == TileStatus.DOOR_RED && !inventory.contains("KEY_RED");
-			if(doorRedKey)
-				return false;
-			boolean doorYellowKey = status == TileStatus.DOOR_YELLOW && !inventory.contains("KEY_YELLOW");
-			if(doorYellowKey)
+			if(!inventory.canOpen(status))
 				return false;
 			
 			// Finally, checking the position is within the Environment and not a wall.
@@ -343,7 +538,15 @@ public class Environment {
    */
 	protected void updateRobotPos(Robot robot, int row, int col) {
 		Position p = positions[row][col];
-		robotPositions.put(robot, p);
+		Position from = robotPositions.put(robot, p);
+		int index = this.robots.indexOf(robot);
+		if (from != null)
+			this.stateHash ^= Zobrist.robot(index, getCellId(from));
+		this.stateHash ^= Zobrist.robot(index, row * this.cols + col);
+		this.moveVersion++;
+		for (EnvironmentListener listener : this.listeners) {
+			listener.robotMoved(robot, from == null ? NO_CELL : getCellId(from), row * this.cols + col);
+		}
 	}
 
 	/** Gets the new state of the world after robot actions. */
@@ -375,33 +578,18 @@ public class Environment {
         break;
 			}
 
-			TileStatus status = tiles.get(robotPos).getStatus();
-			ArrayList<String> inventory = this.robotHoldings.get(robot);
+			TileStatus status = getTileStatus(robotPos);
+			Inventory inventory = this.robotHoldings.get(robot);
 			if(status == TileStatus.CHIP) {
 				removeFromEvironment(status, robotPos);
-			} else if(status == TileStatus.KEY_BLUE) {
-				inventory.add("KEY_BLUE");
-				removeFromEvironment(status, robotPos);
-			} else if(status == TileStatus.KEY_GREEN) {
-				inventory.add("KEY_GREEN");
+			} else if(status == TileStatus.KEY_BLUE || status == TileStatus.KEY_GREEN
+					|| status == TileStatus.KEY_RED || status == TileStatus.KEY_YELLOW) {
+				changeKeys(robot, inventory, status, true);
 				removeFromEvironment(status, robotPos);
-			} else if(status == TileStatus.KEY_RED) {
-				inventory.add("KEY_RED");
-				removeFromEvironment(status, robotPos);
-			} else if(status == TileStatus.KEY_YELLOW) {
-				inventory.add("KEY_YELLOW");
-				removeFromEvironment(status, robotPos);
-			} else if(status == TileStatus.DOOR_BLUE) {
-				inventory.remove("KEY_BLUE");
-				removeFromEvironment(status, robotPos);
-			} else if(status == TileStatus.DOOR_GREEN) {
-				inventory.remove("KEY_GREEN");
-				removeFromEvironment(status, robotPos);
-			} else if(status == TileStatus.DOOR_RED) {
-				inventory.remove("KEY_RED");
-				removeFromEvironment(status, robotPos);
-			} else if(status == TileStatus.DOOR_YELLOW) {
-				inventory.remove("KEY_YELLOW");
+			} else if(status == TileStatus.DOOR_BLUE || status == TileStatus.DOOR_GREEN
+					|| status == TileStatus.DOOR_RED || status == TileStatus.DOOR_YELLOW) {
+				// Doors share their key's slot, so this uses up one matching key
+				changeKeys(robot, inventory, status, false);
 				removeFromEvironment(status, robotPos);
 			} else if(status == TileStatus.DOOR_GOAL) {
 				removeFromEvironment(status, robotPos);
@@ -409,8 +597,20 @@ public class Environment {
 		}
 	}
 
+	/* Adds or uses up one key of a color, keeping the state hash in step. */
+	private void changeKeys(Robot robot, Inventory inventory, TileStatus keyOrDoor, boolean add) {
+		int index = this.robots.indexOf(robot);
+		int slot = Inventory.slotOf(keyOrDoor);
+		this.stateHash ^= Zobrist.keys(index, slot, inventory.getCount(keyOrDoor));
+		if (add)
+			inventory.add(keyOrDoor);
+		else
+			inventory.remove(keyOrDoor);
+		this.stateHash ^= Zobrist.keys(index, slot, inventory.getCount(keyOrDoor));
+	}
+
 	private void removeFromEvironment(TileStatus tile, Position robotPos) {
-		this.tiles.put(robotPos, new Tile(TileStatus.BLANK));
+		setTileStatus(robotPos, TileStatus.BLANK);
 		this.envPositions.get(tile).remove(robotPos);
 		//System.out.println("UPDATED " + tile + ": ");
 		//System.out.println(this.getEnvironmentPositions().get(tile));
@@ -0,0 +1,34 @@
+package edu.ncsu.csc411.ps06.environment;
+
+import edu.ncsu.csc411.ps06.agent.Robot;
+
+/**
+ * Receives every change an Environment makes, as it happens, so that a
+ * view of the Environment can update only what changed instead of
+ * scanning the whole map. Listeners are called on the thread that
+ * changes the Environment and must not change it themselves.
+ */
+public interface EnvironmentListener {
+  /**
+   * Called after a tile changes status, such as a chip being picked up or
+   * a door opening.
+   * @param cell - the cell id, row * cols + col
+   * @param status - the tile's new status
+   */
+  void tileChanged(int cell, TileStatus status);
+
+  /**
+   * Called after a robot is placed or moves to a new cell.
+   * @param robot - the robot
+   * @param from - the cell id it left, or Environment.NO_CELL if it was
+   *     just placed
+   * @param to - the cell id it is now on
+   */
+  void robotMoved(Robot robot, int from, int to);
+
+  /**
+   * Called after Environment.reset() restores the starting state, which
+   * changes any number of tiles and replaces the robots.
+   */
+  void environmentReset();
+}
@@ -0,0 +1,162 @@
+package edu.ncsu.csc411.ps06.environment;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The keys a Robot is currently carrying. Each key color has a slot
+ * holding how many keys of that color are held, plus a bitmask with
+ * one bit per color that is set while that count is above zero, so
+ * checking whether a door can be opened is a single bit test.
+ *
+ * Inventories compare equal when they hold the same keys, which makes
+ * them usable as part of a search-state key.
+ */
+public class Inventory {
+  /** The key colors in slot order; bit i of the mask is KEYS[i]. */
+  public static final TileStatus[] KEYS = {
+      TileStatus.KEY_BLUE, TileStatus.KEY_GREEN,
+      TileStatus.KEY_RED, TileStatus.KEY_YELLOW };
+
+  private final int[] counts = new int[KEYS.length];
+  private int mask;
+  private int size;
+  private final List<String> view = new HoldingsView();
+
+  /**
+   * Returns the slot of a key or door, or -1 if the status is neither.
+   * A door shares the slot of the key that opens it.
+   * @param status - a KEY_* or DOOR_* status
+   * @return the slot index, or -1
+   */
+  public static int slotOf(TileStatus status) {
+    switch (status) {
+      case KEY_BLUE: case DOOR_BLUE: return 0;
+      case KEY_GREEN: case DOOR_GREEN: return 1;
+      case KEY_RED: case DOOR_RED: return 2;
+      case KEY_YELLOW: case DOOR_YELLOW: return 3;
+      default: return -1;
+    }
+  }
+
+  /**
+   * Returns true if at least one key of the given color is held.
+   * @param key - a KEY_* status
+   * @return true if the key is held
+   */
+  public boolean has(TileStatus key) {
+    int slot = slotOf(key);
+    return slot >= 0 && (this.mask & (1 << slot)) != 0;
+  }
+
+  /**
+   * Returns true if the given colored door can be passed with the keys
+   * currently held. Statuses that are not colored doors return true.
+   * @param door - a DOOR_* status
+   * @return false only for a colored door whose key is missing
+   */
+  public boolean canOpen(TileStatus door) {
+    switch (door) {
+      case DOOR_BLUE: case DOOR_GREEN: case DOOR_RED: case DOOR_YELLOW:
+        return (this.mask & (1 << slotOf(door))) != 0;
+      default:
+        return true;
+    }
+  }
+
+  /**
+   * Returns the number of keys of the given color that are held.
+   * @param key - a KEY_* status
+   * @return the key count
+   */
+  public int getCount(TileStatus key) {
+    int slot = slotOf(key);
+    return slot < 0 ? 0 : this.counts[slot];
+  }
+
+  /** @return one bit per key color, set while that color is held */
+  public int getMask() { return this.mask; }
+
+  /** @return the total number of keys held */
+  public int size() { return this.size; }
+
+  /** @return true if no keys are held */
+  public boolean isEmpty() { return this.size == 0; }
+
+  protected void add(TileStatus key) {
+    int slot = slotOf(key);
+    this.counts[slot]++;
+    this.mask |= 1 << slot;
+    this.size++;
+  }
+
+  /* Removes one key of the given color, if one is held. */
+  protected void remove(TileStatus key) {
+    int slot = slotOf(key);
+    if (this.counts[slot] == 0)
+      return;
+    if (--this.counts[slot] == 0)
+      this.mask &= ~(1 << slot);
+    this.size--;
+  }
+
+  /**
+   * Returns a read-only List of the held keys by name ("KEY_BLUE", ...),
+   * one entry per key. The List reflects later changes to the inventory.
+   * @return the holdings as Strings
+   */
+  public List<String> asList() {
+    return this.view;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj)
+      return true;
+    if (!(obj instanceof Inventory))
+      return false;
+    return Arrays.equals(this.counts, ((Inventory) obj).counts);
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(this.counts);
+  }
+
+  @Override
+  public String toString() {
+    return this.view.toString();
+  }
+
+  /* Walks the slots in order, repeating a name once per key held. */
+  private class HoldingsView extends AbstractList<String> {
+    @Override
+    public String get(int index) {
+      if (index < 0 || index >= size)
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+      for (int slot = 0; slot < KEYS.length; slot++) {
+        if (index < counts[slot])
+          return KEYS[slot].name();
+        index -= counts[slot];
+      }
+      throw new IllegalStateException();
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      if (!(o instanceof String))
+        return false;
+      for (int slot = 0; slot < KEYS.length; slot++) {
+        if (counts[slot] > 0 && KEYS[slot].name().equals(o))
+          return true;
+      }
+      return false;
+    }
+  }
+}
@@ -0,0 +1,249 @@
+package edu.ncsu.csc411.ps06.environment;
+
+import java.util.Arrays;
+
+/**
+ * A parsed map that Environments are built from. A template holds the
+ * starting tile of every cell plus everything about the map that never
+ * changes during a simulation: the Position graph and the adjacency
+ * table. Every Environment made from the same template shares those, so
+ * building one only copies the starting tiles.
+ *
+ * Cells are encoded as bytes: the TileStatus ordinal of the tile, or
+ * START for a robot's starting cell, which is blank underneath.
+ *
+ * A template is immutable once built and safe to share between threads.
+ */
+public final class MapTemplate {
+  /** The code of a robot's starting cell. */
+  public static final byte START = 127;
+
+  private static final TileStatus[] STATUSES = TileStatus.values();
+
+  private final int rows;
+  private final int cols;
+  private final byte[] codes;
+
+  // Derived from codes: the initial grid and counts, the cells that start
+  // with a robot, and the cells Environment tracks in envPositions
+  private final byte[] initialGrid;
+  private final int[] initialCounts;
+  private final int[] startCells;
+  private final int[] trackedCells;
+  // Zobrist hash of the starting tiles, the base of every Environment's state hash
+  private final long initialTileHash;
+
+  private final Position[][] positions;
+  private final Position[] cells;
+  private final int[][] adjacency;
+
+  /**
+   * Builds a template from one code per cell in row-major order. The
+   * array is copied.
+   * @param rows - the number of rows
+   * @param cols - the number of columns
+   * @param codes - rows * cols codes, each a TileStatus ordinal or START
+   */
+  public MapTemplate(int rows, int cols, byte[] codes) {
+    if (rows <= 0 || cols <= 0)
+      throw new IllegalArgumentException("Map must have at least one cell: " + rows + "x" + cols);
+    if (codes.length != rows * cols)
+      throw new IllegalArgumentException("Expected " + rows * cols + " cells, found " + codes.length);
+    this.rows = rows;
+    this.cols = cols;
+    this.codes = codes.clone();
+
+    int cellCount = rows * cols;
+    this.initialGrid = new byte[cellCount];
+    this.initialCounts = new int[STATUSES.length];
+    int[] starts = new int[cellCount];
+    int[] tracked = new int[cellCount];
+    int startCount = 0;
+    int trackedCount = 0;
+    long tileHash = 0;
+    for (int cell = 0; cell < cellCount; cell++) {
+      byte code = this.codes[cell];
+      if (code == START) {
+        starts[startCount++] = cell;
+        code = (byte) TileStatus.BLANK.ordinal();
+      } else if (code < 0 || code >= STATUSES.length) {
+        throw new IllegalArgumentException("Unknown tile code " + code + " at cell " + cell);
+      } else if (isTracked(STATUSES[code])) {
+        tracked[trackedCount++] = cell;
+      }
+      this.initialGrid[cell] = code;
+      this.initialCounts[code]++;
+      tileHash ^= Zobrist.tile(cell, STATUSES[code]);
+    }
+    this.initialTileHash = tileHash;
+    this.startCells = Arrays.copyOf(starts, startCount);
+    this.trackedCells = Arrays.copyOf(tracked, trackedCount);
+
+    this.positions = new Position[rows][cols];
+    this.cells = new Position[cellCount];
+    this.adjacency = new int[cellCount][Direction.COUNT];
+    buildGraph();
+  }
+
+  /**
+   * Builds a template of blank tiles with no robot.
+   * @param rows - the number of rows
+   * @param cols - the number of columns
+   * @return the template
+   */
+  public static MapTemplate blank(int rows, int cols) {
+    // BLANK is ordinal 0, so a fresh array is already all blank
+    return new MapTemplate(rows, cols, new byte[rows * cols]);
+  }
+
+  /**
+   * Builds a template from the two-letter acronyms read by
+   * MapManager.loadMap. Every row must be as wide as the first.
+   * @param map - one acronym per cell
+   * @return the template
+   * @throws IllegalArgumentException for an unknown acronym, an empty map
+   *     or rows of different widths
+   */
+  public static MapTemplate parse(String[][] map) {
+    if (map.length == 0)
+      throw new IllegalArgumentException("Map has no cells");
+    int rows = map.length;
+    int cols = map[0].length;
+    byte[] codes = new byte[rows * cols];
+    for (int row = 0; row < rows; row++) {
+      if (map[row].length != cols)
+        throw new IllegalArgumentException(
+            "Row " + row + " has " + map[row].length + " cells, expected " + cols);
+      for (int col = 0; col < cols; col++) {
+        codes[row * cols + col] = codeOf(map[row][col]);
+      }
+    }
+    return new MapTemplate(rows, cols, codes);
+  }
+
+  /**
+   * Returns the code of a map acronym, such as "WL" for a wall.
+   * @param acronym - a two-letter acronym
+   * @return the TileStatus ordinal, or START for "ST"
+   * @throws IllegalArgumentException for an unknown acronym
+   */
+  public static byte codeOf(String acronym) {
+    byte code = acronym.length() == 2 ? codeOf(acronym.charAt(0), acronym.charAt(1)) : -1;
+    if (code < 0)
+      throw new IllegalArgumentException("Tile Not Found - " + acronym);
+    return code;
+  }
+
+  /**
+   * Returns the code of a map acronym given as its two characters, without
+   * building a String.
+   * @param first - the acronym's first character
+   * @param second - the acronym's second character
+   * @return the TileStatus ordinal, START for "ST", or -1 if unknown
+   */
+  public static byte codeOf(char first, char second) {
+    TileStatus status;
+    switch (first) {
+      case 'S': return second == 'T' ? START : -1;
+      case 'B': status = second == 'L' ? TileStatus.BLANK : null; break;
+      case 'W':
+        status = second == 'L' ? TileStatus.WALL : second == 'A' ? TileStatus.WATER : null;
+        break;
+      case 'C': status = second == 'H' ? TileStatus.CHIP : null; break;
+      case 'P': status = second == 'L' ? TileStatus.GOAL : null; break;
+      case 'D':
+        switch (second) {
+          case 'P': status = TileStatus.DOOR_GOAL; break;
+          case 'G': status = TileStatus.DOOR_GREEN; break;
+          case 'Y': status = TileStatus.DOOR_YELLOW; break;
+          case 'B': status = TileStatus.DOOR_BLUE; break;
+          case 'R': status = TileStatus.DOOR_RED; break;
+          default: status = null;
+        }
+        break;
+      case 'K':
+        switch (second) {
+          case 'G': status = TileStatus.KEY_GREEN; break;
+          case 'Y': status = TileStatus.KEY_YELLOW; break;
+          case 'B': status = TileStatus.KEY_BLUE; break;
+          case 'R': status = TileStatus.KEY_RED; break;
+          default: status = null;
+        }
+        break;
+      default: status = null;
+    }
+    return status == null ? -1 : (byte) status.ordinal();
+  }
+
+  /** @return the number of rows */
+  public int getRows() { return this.rows; }
+
+  /** @return the number of columns */
+  public int getCols() { return this.cols; }
+
+  /**
+   * @param cell - a cell id, row * cols + col
+   * @return the cell's code: a TileStatus ordinal or START
+   */
+  public byte getCode(int cell) { return this.codes[cell]; }
+
+  /** @return the number of robots the map starts with */
+  public int getStartCount() { return this.startCells.length; }
+
+  /**
+   * @param index - 0 to getStartCount() - 1
+   * @return the cell id of a robot's starting cell
+   */
+  public int getStartCell(int index) { return this.startCells[index]; }
+
+  /* Shared, read-only state handed to the Environments built from this. */
+  Position[][] positions() { return this.positions; }
+  Position[] cells() { return this.cells; }
+  int[][] adjacency() { return this.adjacency; }
+  byte[] initialGrid() { return this.initialGrid; }
+  int[] initialCounts() { return this.initialCounts; }
+  int[] trackedCells() { return this.trackedCells; }
+  long initialTileHash() { return this.initialTileHash; }
+
+  /* Statuses whose Positions Environment lists in envPositions. */
+  static boolean isTracked(TileStatus status) {
+    switch (status) {
+      case BLANK: case WALL: case WATER: return false;
+      default: return true;
+    }
+  }
+
+  private void buildGraph() {
+    for (int row = 0; row < this.rows; row++) {
+      for (int col = 0; col < this.cols; col++) {
+        int id = row * this.cols + col;
+        Position p = new Position(row, col, id);
+        this.positions[row][col] = p;
+        this.cells[id] = p;
+      }
+    }
+
+    for (int row = 0; row < this.rows; row++) {
+      for (int col = 0; col < this.cols; col++) {
+        Position p = this.positions[row][col];
+        if (row > 0)
+          p.setAbove(this.positions[row - 1][col]);
+        if (row < this.rows - 1)
+          p.setBelow(this.positions[row + 1][col]);
+        if (col > 0)
+          p.setLeft(this.positions[row][col - 1]);
+        if (col < this.cols - 1)
+          p.setRight(this.positions[row][col + 1]);
+
+        int[] adjacent = this.adjacency[row * this.cols + col];
+        for (int d = 0; d < Direction.COUNT; d++) {
+          Direction direction = Direction.get(d);
+          int r = row + direction.getRowOffset();
+          int c = col + direction.getColOffset();
+          boolean inside = r >= 0 && r < this.rows && c >= 0 && c < this.cols;
+          adjacent[d] = inside ? r * this.cols + c : Environment.NO_CELL;
+        }
+      }
+    }
+  }
+}
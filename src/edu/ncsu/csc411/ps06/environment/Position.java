@@ -11,6 +11,7 @@ package edu.ncsu.csc411.ps06.environment;
 public class Position {
   private int row; 
   private int col;
+  private int id;
   private Position above;
   private Position below;
   private Position left;
@@ -22,8 +23,17 @@ public class Position {
    * @param col - the col
    */
   public Position(int row, int col) {
+    this(row, col, -1);
+  }
+
+  /*
+   * Instantiates a Position that the Environment has assigned a cell id,
+   * which is row * cols + col for that Environment.
+   */
+  protected Position(int row, int col, int id) {
     this.row = row;
     this.col = col;
+    this.id = id;
   }
 
   /**
@@ -42,6 +52,16 @@ public class Position {
     return this.col;
   }
 
+  /**
+   * Returns the cell id assigned by the Environment, or -1 for a Position
+   * created outside of one. Use Environment.getCellId to get the id of
+   * any Position.
+   * @return the position's cell id
+   */
+  public int getId() {
+    return this.id;
+  }
+
   protected void setAbove(Position neighbor) {
     this.above = neighbor;
     neighbor.below = this;
@@ -78,6 +98,32 @@ public class Position {
     return this.right;
   }
 
+  /* Positions with the same coordinates are equal, even if one of them
+   * was created outside the Environment. */
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj)
+      return true;
+    if (!(obj instanceof Position))
+      return false;
+    Position other = (Position) obj;
+    return this.row == other.row && this.col == other.col;
+  }
+
+  /* The murmur3 finalizer over both coordinates: a bijection, so no two
+   * cells of a map under 65536 cells square share a hash, and the low bits
+   * HashMap buckets on depend on both row and col. */
+  @Override
+  public int hashCode() {
+    int h = (this.row << 16) ^ this.col;
+    h ^= h >>> 16;
+    h *= 0x85EBCA6B;
+    h ^= h >>> 13;
+    h *= 0xC2B2AE35;
+    h ^= h >>> 16;
+    return h;
+  }
+
   @Override
   public String toString() {
     return "Point (" + this.row + ", " + this.col + ")";
@@ -0,0 +1,67 @@
+package edu.ncsu.csc411.ps06.environment;
+
+/**
+ * The keys of the Zobrist hash Environment keeps of its state; see
+ * Environment.getStateHash(). The hash is the XOR of one key per part of
+ * the state: every tile's status, every robot's cell, and every robot's
+ * count of each key color. Changing one part XORs its old key out and its
+ * new key in, so the hash is updated in constant time as the simulation
+ * runs, and a planner can hash a state it only imagines by applying the
+ * same XORs to getStateHash().
+ *
+ * The keys are not stored in tables. Each is a SplitMix64 mix of what it
+ * stands for, so they take no memory on maps of millions of cells, and
+ * the same state hashes the same in every Environment and every run. A
+ * BLANK tile and a count of zero have key 0, so an empty map and an empty
+ * inventory add nothing to the hash.
+ */
+public final class Zobrist {
+  private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+  // Separates the kinds of key, so a tile and a robot never share one
+  private static final long TILE = 0x2545F4914F6CDD1DL;
+  private static final long ROBOT = 0x5851F42D4C957F2DL;
+  private static final long KEYS = 0x14057B7EF767814FL;
+
+  private Zobrist() {
+  }
+
+  /**
+   * @param cell - a cell id
+   * @param status - the status of the tile on the cell
+   * @return the key of that tile, or 0 for BLANK
+   */
+  public static long tile(int cell, TileStatus status) {
+    if (status == TileStatus.BLANK)
+      return 0;
+    return mix(TILE, (long) cell * 16 + status.ordinal());
+  }
+
+  /**
+   * @param robot - the robot's index in Environment.getRobots()
+   * @param cell - the cell id the robot is on
+   * @return the key of the robot standing on that cell
+   */
+  public static long robot(int robot, int cell) {
+    return mix(ROBOT, ((long) robot << 32) | (cell & 0xFFFFFFFFL));
+  }
+
+  /**
+   * @param robot - the robot's index in Environment.getRobots()
+   * @param slot - the key color's slot, see Inventory.slotOf
+   * @param count - the number of keys of that color held
+   * @return the key of the robot holding that many keys, or 0 for none
+   */
+  public static long keys(int robot, int slot, int count) {
+    if (count == 0)
+      return 0;
+    return mix(KEYS, ((long) robot << 40) | ((long) slot << 32) | (count & 0xFFFFFFFFL));
+  }
+
+  /* The SplitMix64 finalizer over the index's place in its kind's sequence. */
+  private static long mix(long kind, long index) {
+    long z = kind + index * GOLDEN_GAMMA;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+}
@@ -0,0 +1,366 @@
+package edu.ncsu.csc411.ps06.simulation;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+
+import edu.ncsu.csc411.ps06.agent.DistanceFields;
+import edu.ncsu.csc411.ps06.environment.MapTemplate;
+import edu.ncsu.csc411.ps06.utils.BinaryMapFormat;
+import edu.ncsu.csc411.ps06.utils.Histogram;
+import edu.ncsu.csc411.ps06.utils.LogLevel;
+import edu.ncsu.csc411.ps06.utils.MapManager;
+
+/**
+ * Runs many trials over many maps at once. Every trial is its own
+ * RunSimulation, with its own Environment and Robot, built only once a
+ * thread is free to run it and run on a TrialExecutor, which cancels it
+ * if it outlasts the timeout. A trial that times out counts as a failure.
+ * When all trials are done, a Report is produced for each map with its
+ * success rate, the mean and percentiles of the steps taken by successful
+ * trials, and the wall time spent running the map's trials, along with
+ * the trials' SimulationMetrics combined.
+ *
+ * Usage: BatchSimulation [--trials=N] [--seed=N] [--timeout=MS] [map file or directory ...]
+ * Directories contribute every .txt and .bin file in them. With no maps given,
+ * maps/public is used. One trial runs per core, or fewer if the largest
+ * map's trials would not all fit in the heap at once. The seed is printed
+ * with the results, so a run can be repeated by passing it back in.
+ */
+public class BatchSimulation {
+	private static final int DEFAULT_TRIALS = 10;
+	private static final long DEFAULT_TIMEOUT_MILLIS = 60_000;
+	private static final String DEFAULT_MAPS = "maps/public";
+	private static final String USAGE =
+			"Usage: BatchSimulation [--trials=N] [--seed=N] [--timeout=MS] [map file or directory ...]";
+	// Measured at 70 to 140 bytes a cell for an Environment and its Robot
+	private static final long BYTES_PER_CELL = 160;
+
+	private final List<String> mapFiles;
+	private final int trials;
+	private final SimulationConfig config;
+	private final int threads;
+	private final long timeoutMillis;
+
+	/**
+	 * Builds a batch that runs every map trials times. Trial t of every map
+	 * runs with the config's seed plus t, so a batch can be repeated.
+	 * @param mapFiles - the maps to run
+	 * @param trials - the number of trials per map
+	 * @param config - the settings every trial runs with
+	 * @param threads - the number of trials run at once
+	 * @param timeoutMillis - how long a trial may run before it is cancelled
+	 */
+	public BatchSimulation(List<String> mapFiles, int trials, SimulationConfig config, int threads,
+			long timeoutMillis) {
+		this.mapFiles = new ArrayList<>(mapFiles);
+		this.trials = trials;
+		this.config = config;
+		this.threads = threads;
+		this.timeoutMillis = timeoutMillis;
+	}
+
+	/**
+	 * Returns how many trials of the given maps fit in the heap at once,
+	 * going by the largest map: its distance fields at their most, plus
+	 * its Environment and Robot. A quarter of the heap is left over for
+	 * the map templates and the collector.
+	 * @param mapFiles - the maps to run
+	 * @return the number of trials to run at once, at least 1
+	 */
+	public static int threadsThatFit(List<String> mapFiles) {
+		long largest = 0;
+		for (String mapFile : mapFiles) {
+			int cells;
+			try {
+				// Cached, so the trials do not read the map again
+				MapTemplate template = MapManager.loadTemplate(mapFile);
+				cells = template.getRows() * template.getCols();
+			} catch (RuntimeException e) {
+				// Its trials will fail and report why
+				continue;
+			}
+			largest = Math.max(largest, DistanceFields.maxBytes(cells) + BYTES_PER_CELL * cells);
+		}
+		long heap = Runtime.getRuntime().maxMemory() / 4 * 3;
+		return (int) Math.max(1, Math.min(Integer.MAX_VALUE, heap / Math.max(1, largest)));
+	}
+
+	/**
+	 * Runs every trial and waits for all of them.
+	 * @return one Report per map, in the order the maps were given
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public List<Report> run() throws InterruptedException {
+		// The workers hand trials to the executor one at a time, so only
+		// threads trials are ever built at once, however many are queued
+		ExecutorService workers = Executors.newFixedThreadPool(this.threads);
+		try (TrialExecutor executor = new TrialExecutor(this.threads)) {
+			// Interleave the maps so that slow maps do not all land at the end
+			List<Future<Trial>> futures = new ArrayList<>();
+			for (int trial = 0; trial < this.trials; trial++) {
+				SimulationConfig trialConfig = this.config.withSeed(this.config.getSeed() + trial);
+				for (String mapFile : this.mapFiles) {
+					futures.add(workers.submit(() -> runTrial(executor, mapFile, trialConfig)));
+				}
+			}
+
+			List<List<Trial>> byMap = new ArrayList<>();
+			for (int i = 0; i < this.mapFiles.size(); i++) {
+				byMap.add(new ArrayList<>());
+			}
+			for (int i = 0; i < futures.size(); i++) {
+				Trial result;
+				try {
+					result = futures.get(i).get();
+				} catch (ExecutionException e) {
+					// runTrial turns crashes into failed trials, so this is rare
+					SimulationConfig trialConfig = this.config.withSeed(
+							this.config.getSeed() + i / this.mapFiles.size());
+					result = failed(this.mapFiles.get(i % this.mapFiles.size()), trialConfig, 0,
+							SimulationMetrics.EMPTY, e.getCause());
+				}
+				byMap.get(i % this.mapFiles.size()).add(result);
+			}
+
+			List<Report> reports = new ArrayList<>();
+			for (int i = 0; i < this.mapFiles.size(); i++) {
+				reports.add(new Report(this.mapFiles.get(i), byMap.get(i)));
+			}
+			return reports;
+		} finally {
+			workers.shutdownNow();
+		}
+	}
+
+	private Trial runTrial(TrialExecutor executor, String mapFile, SimulationConfig trialConfig)
+			throws InterruptedException {
+		long start = System.nanoTime();
+		RunSimulation sim = null;
+		try {
+			sim = new RunSimulation(mapFile, trialConfig);
+			executor.run(sim, this.timeoutMillis);
+			return new Trial(sim.goalConditionMet(), sim.getStepsTaken(), System.nanoTime() - start,
+					sim.getMetrics());
+		} catch (TimeoutException e) {
+			// The cancelled run may still be writing its metrics, so leave them out
+			System.err.printf("Trial of %s (seed %d) timed out after %dms%n",
+					mapFile, trialConfig.getSeed(), this.timeoutMillis);
+			return new Trial(false, trialConfig.getIterations(), System.nanoTime() - start,
+					SimulationMetrics.EMPTY);
+		} catch (ExecutionException e) {
+			return failed(mapFile, trialConfig, System.nanoTime() - start, sim.getMetrics(), e.getCause());
+		} catch (InterruptedException e) {
+			throw e;
+		} catch (Throwable e) {
+			// Errors too: one trial running out of memory must not end the batch
+			return failed(mapFile, trialConfig, System.nanoTime() - start,
+					sim == null ? SimulationMetrics.EMPTY : sim.getMetrics(), e);
+		}
+	}
+
+	/* Reports a crashed trial and records it as a failure that used every step. */
+	private static Trial failed(String mapFile, SimulationConfig trialConfig, long nanos,
+			SimulationMetrics metrics, Throwable cause) {
+		System.err.printf("Trial of %s (seed %d) crashed: %s%n", mapFile, trialConfig.getSeed(), cause);
+		return new Trial(false, trialConfig.getIterations(), nanos, metrics);
+	}
+
+	/* The outcome and timing of a single trial. */
+	private static class Trial {
+		private final boolean success;
+		private final int steps;
+		private final long nanos;
+		private final SimulationMetrics metrics;
+
+		Trial(boolean success, int steps, long nanos, SimulationMetrics metrics) {
+			this.success = success;
+			this.steps = steps;
+			this.nanos = nanos;
+			this.metrics = metrics;
+		}
+	}
+
+	/**
+	 * The results of all trials of one map.
+	 */
+	public static class Report {
+		private final String mapFile;
+		private final int trials;
+		private final int successes;
+		private final int[] successfulSteps;
+		private final long wallNanos;
+		private final SimulationMetrics metrics;
+
+		private Report(String mapFile, List<Trial> results) {
+			this.mapFile = mapFile;
+			this.trials = results.size();
+			int[] steps = new int[results.size()];
+			int count = 0;
+			long wall = 0;
+			SimulationMetrics metrics = SimulationMetrics.EMPTY;
+			for (Trial trial : results) {
+				if (trial.success) {
+					steps[count++] = trial.steps;
+				}
+				wall += trial.nanos;
+				metrics = metrics.plus(trial.metrics);
+			}
+			this.metrics = metrics;
+			this.successes = count;
+			this.successfulSteps = Arrays.copyOf(steps, count);
+			Arrays.sort(this.successfulSteps);
+			this.wallNanos = wall;
+		}
+
+		/** @return the map file the trials ran on */
+		public String getMapFile() { return this.mapFile; }
+
+		/** @return the number of trials run */
+		public int getTrials() { return this.trials; }
+
+		/** @return the number of trials that met the goal condition */
+		public int getSuccesses() { return this.successes; }
+
+		/** @return the fraction of trials that met the goal condition */
+		public double getSuccessRate() {
+			return this.trials == 0 ? 0 : (double) this.successes / this.trials;
+		}
+
+		/** @return the mean steps of the successful trials, or NaN if none */
+		public double getMeanSteps() {
+			if (this.successes == 0)
+				return Double.NaN;
+			long total = 0;
+			for (int steps : this.successfulSteps)
+				total += steps;
+			return (double) total / this.successes;
+		}
+
+		/**
+		 * Returns the nearest-rank percentile of the steps taken by the
+		 * successful trials.
+		 * @param percentile - between 0 and 100
+		 * @return the steps at that percentile, or -1 if no trial succeeded
+		 */
+		public int getPercentileSteps(double percentile) {
+			if (this.successes == 0)
+				return -1;
+			int rank = (int) Math.ceil(percentile / 100.0 * this.successes);
+			return this.successfulSteps[Math.max(0, Math.min(this.successes, rank) - 1)];
+		}
+
+		/** @return the wall time of the map's trials, summed over the trials */
+		public long getWallTimeMillis() {
+			return this.wallNanos / 1_000_000;
+		}
+
+		/** @return the metrics of all of the map's trials, combined */
+		public SimulationMetrics getMetrics() { return this.metrics; }
+
+		/**
+		 * Formats the map's time step latencies, planning counts and the mean
+		 * time per trial of the up-front solve and of distance field builds
+		 * as a row of the metrics table. Latencies are in microseconds, the
+		 * solve and field times in milliseconds.
+		 * @return the row
+		 */
+		public String formatMetrics() {
+			Histogram ticks = this.metrics.getTickNanos();
+			Histogram actions = this.metrics.getActionNanos();
+			double hitRate = this.metrics.getCacheHitRate();
+			String cache = Double.isNaN(hitRate) ? "-" : String.format("%.1f%%", 100 * hitRate);
+			int runs = Math.max(1, this.metrics.getRuns());
+			return String.format("%-28s %8.1f %8.1f %8.1f %8.1f %7d %9d %7s %7d %6d %9.1f %9d %9.1f",
+					this.mapFile, ticks.getValueAtPercentile(50) / 1e3, ticks.getValueAtPercentile(99) / 1e3,
+					ticks.getMax() / 1e3, actions.getValueAtPercentile(99) / 1e3, this.metrics.getSearches(),
+					this.metrics.getNodesExpanded(), cache, this.metrics.getReplans(),
+					this.metrics.getStuckDetections(), this.metrics.getSolveNanos() / 1e6 / runs,
+					this.metrics.getSolverStates(), this.metrics.getFieldBuildNanos() / 1e6 / runs);
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%-28s %3d/%-3d %6.1f%% %8.1f %6d %6d %6d %8dms",
+					this.mapFile, this.successes, this.trials, 100 * getSuccessRate(), getMeanSteps(),
+					getPercentileSteps(50), getPercentileSteps(90), getPercentileSteps(99),
+					getWallTimeMillis());
+		}
+	}
+
+	/* Expands directories into their text and binary map files, sorted by name. */
+	private static List<String> collectMaps(List<String> paths) {
+		List<String> maps = new ArrayList<>();
+		for (String path : paths) {
+			File file = new File(path);
+			File[] children = file.listFiles(
+					(dir, name) -> name.endsWith(".txt") || BinaryMapFormat.isBinary(name));
+			if (children == null) {
+				maps.add(path);
+				continue;
+			}
+			Arrays.sort(children);
+			for (File child : children) {
+				maps.add(child.getPath());
+			}
+		}
+		return maps;
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+		int trials = DEFAULT_TRIALS;
+		long timeoutMillis = DEFAULT_TIMEOUT_MILLIS;
+		SimulationConfig config = new SimulationConfig().withLogLevel(LogLevel.OFF);
+		List<String> paths = new ArrayList<>();
+		for (String arg : args) {
+			if (arg.startsWith("--trials=")) {
+				trials = Integer.parseInt(arg.substring("--trials=".length()));
+			} else if (arg.startsWith("--seed=")) {
+				config = config.withSeed(Long.parseLong(arg.substring("--seed=".length())));
+			} else if (arg.startsWith("--timeout=")) {
+				timeoutMillis = Long.parseLong(arg.substring("--timeout=".length()));
+			} else if (arg.startsWith("--")) {
+				System.err.println(USAGE);
+				System.exit(1);
+			} else {
+				paths.add(arg);
+			}
+		}
+		if (paths.isEmpty()) {
+			paths.add(DEFAULT_MAPS);
+		}
+		List<String> maps = collectMaps(paths);
+		int threads = Math.min(Runtime.getRuntime().availableProcessors(), threadsThatFit(maps));
+		BatchSimulation batch = new BatchSimulation(maps, trials, config, threads, timeoutMillis);
+
+		long start = System.nanoTime();
+		List<Report> reports = batch.run();
+		long wallMillis = (System.nanoTime() - start) / 1_000_000;
+
+		System.out.printf("%-28s %7s %7s %8s %6s %6s %6s %10s%n",
+				"Map", "Pass", "Rate", "Mean", "p50", "p90", "p99", "Wall");
+		int successes = 0;
+		int total = 0;
+		for (Report report : reports) {
+			System.out.println(report);
+			successes += report.getSuccesses();
+			total += report.getTrials();
+		}
+		System.out.printf("%d/%d trials succeeded across %d maps in %dms on %d threads (seed %d)%n",
+				successes, total, maps.size(), wallMillis, threads, config.getSeed());
+
+		System.out.println();
+		System.out.printf("%-28s %8s %8s %8s %8s %7s %9s %7s %7s %6s %9s %9s %9s%n",
+				"Map (latency in us)", "tick p50", "tick p99", "tick max", "act p99",
+				"search", "nodes", "cache", "replan", "stuck", "solve ms", "states", "fields ms");
+		for (Report report : reports) {
+			System.out.println(report.formatMetrics());
+		}
+	}
+}
@@ -0,0 +1,270 @@
+package edu.ncsu.csc411.ps06.simulation;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.function.IntPredicate;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageOutputStream;
+
+import edu.ncsu.csc411.ps06.environment.Environment;
+import edu.ncsu.csc411.ps06.utils.LogLevel;
+import edu.ncsu.csc411.ps06.utils.Logger;
+
+/**
+ * Renders the time steps of a RunSimulation to image files without a
+ * display, to look at a failing trial on a machine with no screen. Add
+ * the exporter to a RunSimulation with addTickObserver, run it, then
+ * close the exporter; frames are written either as a numbered PNG
+ * sequence or as a single animated GIF.
+ *
+ * The map is drawn with the same sprites as the visualizer, through a
+ * MapRenderer, so each exported frame only redraws the cells changed
+ * since the one before. Every frame is composed into one reused image,
+ * so memory does not grow with the length of the run.
+ *
+ * Usage: FrameExporter map.txt out.gif|outdir [--every=N] [--tile=N] [--seed=N]
+ */
+public class FrameExporter implements TickObserver, AutoCloseable {
+	private static final int DEFAULT_TILESIZE = 16;
+	private static final int DEFAULT_GIF_DELAY = 100;
+	// The visualizer's window shows through the gaps between tiles
+	private static final Color BACKGROUND = new Color(0xEE, 0xEE, 0xEE);
+
+	private final File output;
+	private final boolean gif;
+	private final int tileSize;
+	private final int frameDelayMillis;
+	private final IntPredicate ticks;
+
+	private MapRenderer renderer;
+	private BufferedImage frame;
+	private Graphics2D frameGraphics;
+	private ImageWriter gifWriter;
+	private ImageOutputStream gifStream;
+	private Environment env;
+	private int lastTick = -1;
+	private int lastExported = -1;
+	private int framesWritten;
+
+	private FrameExporter(File output, boolean gif, int tileSize, int frameDelayMillis, IntPredicate ticks) {
+		this.output = output;
+		this.gif = gif;
+		this.tileSize = tileSize;
+		this.frameDelayMillis = frameDelayMillis;
+		this.ticks = ticks;
+	}
+
+	/**
+	 * Builds an exporter that writes each chosen time step to
+	 * directory/tick-NNNNN.png, creating the directory if needed.
+	 * @param directory - the directory to write to
+	 * @param tileSize - the size of a tile in pixels
+	 * @param ticks - chooses the time steps to export; the last is always
+	 *     exported
+	 * @return the exporter
+	 */
+	public static FrameExporter pngSequence(File directory, int tileSize, IntPredicate ticks) {
+		return new FrameExporter(directory, false, tileSize, 0, ticks);
+	}
+
+	/**
+	 * Builds an exporter that writes the chosen time steps as the frames of
+	 * one looping animated GIF.
+	 * @param file - the GIF file to write
+	 * @param tileSize - the size of a tile in pixels
+	 * @param frameDelayMillis - how long each frame is shown
+	 * @param ticks - chooses the time steps to export; the last is always
+	 *     exported
+	 * @return the exporter
+	 */
+	public static FrameExporter gif(File file, int tileSize, int frameDelayMillis, IntPredicate ticks) {
+		return new FrameExporter(file, true, tileSize, frameDelayMillis, ticks);
+	}
+
+	/**
+	 * Chooses every nth time step, starting with the starting state.
+	 * @param n - the stride, at least 1
+	 * @return the choice
+	 * @throws IllegalArgumentException if n is less than 1
+	 */
+	public static IntPredicate everyNth(int n) {
+		if (n < 1)
+			throw new IllegalArgumentException("n must be at least 1: " + n);
+		return tick -> tick % n == 0;
+	}
+
+	@Override
+	public void tickCompleted(Environment env, int timeStep) {
+		if (this.renderer == null)
+			start(env);
+		this.lastTick = timeStep;
+		if (this.ticks.test(timeStep))
+			export(timeStep);
+	}
+
+	/** @return the number of frames written so far */
+	public int getFramesWritten() {
+		return this.framesWritten;
+	}
+
+	/**
+	 * Writes the last time step if it was not chosen, then finishes the
+	 * output file.
+	 * @throws IOException if the frame or the GIF cannot be written
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			if (this.renderer != null && this.lastExported != this.lastTick)
+				export(this.lastTick);
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		} finally {
+			if (this.renderer != null)
+				this.env.removeListener(this.renderer);
+			if (this.frameGraphics != null)
+				this.frameGraphics.dispose();
+			if (this.gifWriter != null) {
+				try {
+					this.gifWriter.endWriteSequence();
+				} finally {
+					this.gifWriter.dispose();
+					this.gifStream.close();
+				}
+			}
+		}
+	}
+
+	private void start(Environment env) {
+		this.env = env;
+		this.renderer = new MapRenderer(env, new SpriteAtlas(this.tileSize, Logger.OFF));
+		BufferedImage map = this.renderer.getImage();
+		this.frame = new BufferedImage(map.getWidth(), map.getHeight(), BufferedImage.TYPE_INT_RGB);
+		this.frameGraphics = this.frame.createGraphics();
+		try {
+			if (this.gif) {
+				Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("gif");
+				if (!writers.hasNext())
+					throw new IOException("No GIF writer available");
+				this.gifWriter = writers.next();
+				this.gifStream = ImageIO.createImageOutputStream(this.output);
+				if (this.gifStream == null)
+					throw new IOException("Cannot write " + this.output);
+				this.gifWriter.setOutput(this.gifStream);
+				this.gifWriter.prepareWriteSequence(null);
+			} else if (!this.output.isDirectory() && !this.output.mkdirs()) {
+				throw new IOException("Cannot create " + this.output);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void export(int timeStep) {
+		// Only the cells changed since the last export are redrawn
+		this.renderer.flush(cell -> {});
+		this.frameGraphics.setColor(BACKGROUND);
+		this.frameGraphics.fillRect(0, 0, this.frame.getWidth(), this.frame.getHeight());
+		this.frameGraphics.drawImage(this.renderer.getImage(), 0, 0, null);
+		try {
+			if (this.gif) {
+				ImageWriteParam param = this.gifWriter.getDefaultWriteParam();
+				IIOMetadata metadata = this.gifWriter.getDefaultImageMetadata(
+						ImageTypeSpecifier.createFromRenderedImage(this.frame), param);
+				addGifTiming(metadata, this.framesWritten == 0);
+				this.gifWriter.writeToSequence(new IIOImage(this.frame, null, metadata), param);
+			} else {
+				File file = new File(this.output, String.format("tick-%05d.png", timeStep));
+				ImageIO.write(this.frame, "png", file);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		this.lastExported = timeStep;
+		this.framesWritten++;
+	}
+
+	/* Sets the frame delay and, on the first frame, makes the GIF loop. */
+	private void addGifTiming(IIOMetadata metadata, boolean first) throws IOException {
+		String format = metadata.getNativeMetadataFormatName();
+		IIOMetadataNode root = (IIOMetadataNode) metadata.getAsTree(format);
+
+		IIOMetadataNode control = child(root, "GraphicControlExtension");
+		control.setAttribute("disposalMethod", "none");
+		control.setAttribute("userInputFlag", "FALSE");
+		control.setAttribute("transparentColorFlag", "FALSE");
+		control.setAttribute("delayTime", Integer.toString(Math.max(1, this.frameDelayMillis / 10)));
+		control.setAttribute("transparentColorIndex", "0");
+
+		if (first) {
+			IIOMetadataNode loop = new IIOMetadataNode("ApplicationExtension");
+			loop.setAttribute("applicationID", "NETSCAPE");
+			loop.setAttribute("authenticationCode", "2.0");
+			// Sub-block 1, loop count 0 (forever), little-endian
+			loop.setUserObject(new byte[] { 1, 0, 0 });
+			child(root, "ApplicationExtensions").appendChild(loop);
+		}
+		metadata.setFromTree(format, root);
+	}
+
+	private static IIOMetadataNode child(IIOMetadataNode parent, String name) {
+		for (int i = 0; i < parent.getLength(); i++) {
+			if (parent.item(i).getNodeName().equals(name))
+				return (IIOMetadataNode) parent.item(i);
+		}
+		IIOMetadataNode node = new IIOMetadataNode(name);
+		parent.appendChild(node);
+		return node;
+	}
+
+	/* Prints how to run main and exits, for missing or unknown arguments. */
+	private static void usage() {
+		System.err.println("Usage: FrameExporter map.txt out.gif|outdir [--every=N] [--tile=N] [--seed=N]");
+		System.exit(1);
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2)
+			usage();
+		int every = 1;
+		int tileSize = DEFAULT_TILESIZE;
+		SimulationConfig config = new SimulationConfig().withLogLevel(LogLevel.OFF);
+		for (int i = 2; i < args.length; i++) {
+			String value = args[i].substring(args[i].indexOf('=') + 1);
+			if (args[i].startsWith("--every=")) {
+				every = Integer.parseInt(value);
+			} else if (args[i].startsWith("--tile=")) {
+				tileSize = Integer.parseInt(value);
+			} else if (args[i].startsWith("--seed=")) {
+				config = config.withSeed(Long.parseLong(value));
+			} else {
+				usage();
+			}
+		}
+
+		File output = new File(args[1]);
+		RunSimulation sim = new RunSimulation(args[0], config);
+		FrameExporter exporter = output.getName().endsWith(".gif")
+				? gif(output, tileSize, DEFAULT_GIF_DELAY, everyNth(every))
+				: pngSequence(output, tileSize, everyNth(every));
+		try (FrameExporter e = exporter) {
+			sim.addTickObserver(e);
+			sim.run();
+		}
+		System.out.printf("Wrote %d frames of %d time steps to %s (goal %s, seed %d)%n",
+				exporter.getFramesWritten(), sim.getStepsTaken(), output,
+				sim.goalConditionMet() ? "reached" : "not reached", config.getSeed());
+	}
+}
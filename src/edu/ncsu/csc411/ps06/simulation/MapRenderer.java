@@ -0,0 +1,137 @@
+package edu.ncsu.csc411.ps06.simulation;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+import edu.ncsu.csc411.ps06.agent.Robot;
+import edu.ncsu.csc411.ps06.environment.Environment;
+import edu.ncsu.csc411.ps06.environment.EnvironmentListener;
+import edu.ncsu.csc411.ps06.environment.Position;
+import edu.ncsu.csc411.ps06.environment.TileStatus;
+
+/**
+ * Keeps an image of an Environment up to date by redrawing only the cells
+ * that changed. The whole map is drawn once; after that, the renderer
+ * listens to the Environment, marks the cells whose tile changed or that a
+ * robot left or entered, and flush() redraws just those cells.
+ *
+ * Not thread-safe; the Environment must not change during flush().
+ */
+class MapRenderer implements EnvironmentListener {
+	private final Environment env;
+	private final SpriteAtlas sprites;
+	private final BufferedImage image;
+
+	// The cells changed since the last flush, each listed once
+	private final boolean[] dirty;
+	private int[] dirtyCells = new int[16];
+	private int dirtyCount;
+	private boolean fullRedraw = true;
+
+	/**
+	 * Builds a renderer for the Environment and starts listening to it.
+	 * @param env - the Environment to draw
+	 * @param sprites - the sprites to draw it with
+	 */
+	MapRenderer(Environment env, SpriteAtlas sprites) {
+		this.env = env;
+		this.sprites = sprites;
+		int tileSize = sprites.getTileSize();
+		this.image = SpriteAtlas.createImage(env.getCols() * tileSize, env.getRows() * tileSize);
+		this.dirty = new boolean[env.getCellCount()];
+		env.addListener(this);
+	}
+
+	/** @return the image, current as of the last flush() */
+	BufferedImage getImage() {
+		return this.image;
+	}
+
+	/** @return true if cells have changed since the last flush() */
+	boolean isDirty() {
+		return this.fullRedraw || this.dirtyCount > 0;
+	}
+
+	/**
+	 * Marks a cell to be redrawn by the next flush().
+	 * @param cell - a cell id
+	 */
+	void markDirty(int cell) {
+		if (cell == Environment.NO_CELL || this.dirty[cell])
+			return;
+		this.dirty[cell] = true;
+		if (this.dirtyCount == this.dirtyCells.length)
+			this.dirtyCells = Arrays.copyOf(this.dirtyCells, this.dirtyCount * 2);
+		this.dirtyCells[this.dirtyCount++] = cell;
+	}
+
+	/**
+	 * Redraws the cells changed since the last call into the image.
+	 * @param redrawn - given the id of every cell redrawn, or -1 once if
+	 *     the whole map was redrawn
+	 */
+	void flush(IntConsumer redrawn) {
+		Graphics2D g = this.image.createGraphics();
+		try {
+			if (this.fullRedraw) {
+				for (int cell = 0; cell < this.dirty.length; cell++)
+					drawTile(g, cell);
+				drawRobots(g, Environment.NO_CELL);
+				redrawn.accept(-1);
+			} else {
+				for (int i = 0; i < this.dirtyCount; i++) {
+					int cell = this.dirtyCells[i];
+					drawTile(g, cell);
+					drawRobots(g, cell);
+					redrawn.accept(cell);
+				}
+			}
+		} finally {
+			g.dispose();
+		}
+		for (int i = 0; i < this.dirtyCount; i++)
+			this.dirty[this.dirtyCells[i]] = false;
+		this.dirtyCount = 0;
+		this.fullRedraw = false;
+	}
+
+	@Override
+	public void tileChanged(int cell, TileStatus status) {
+		markDirty(cell);
+	}
+
+	@Override
+	public void robotMoved(Robot robot, int from, int to) {
+		markDirty(from);
+		markDirty(to);
+	}
+
+	@Override
+	public void environmentReset() {
+		this.fullRedraw = true;
+	}
+
+	private void drawTile(Graphics2D g, int cell) {
+		int row = cell / this.env.getCols();
+		int col = cell % this.env.getCols();
+		int tileSize = this.sprites.getTileSize();
+
+		// Clear first, so nothing of a robot that left shows through
+		g.setComposite(AlphaComposite.Clear);
+		g.fillRect(col * tileSize, row * tileSize, tileSize, tileSize);
+		g.setComposite(AlphaComposite.SrcOver);
+		this.sprites.drawTile(g, this.env.getTileStatus(cell), row, col);
+	}
+
+	/* Draws the robots on the cell, or every robot for NO_CELL. */
+	private void drawRobots(Graphics2D g, int cell) {
+		for (Robot robot : this.env.getRobots()) {
+			Position p = this.env.getRobotPosition(robot);
+			if (cell == Environment.NO_CELL || this.env.getCellId(p) == cell)
+				this.sprites.drawRobot(g, p.getRow(), p.getCol());
+		}
+	}
+}
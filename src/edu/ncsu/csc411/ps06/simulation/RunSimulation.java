@@ -1,6 +1,16 @@
 package edu.ncsu.csc411.ps06.simulation;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.ncsu.csc411.ps06.agent.Robot;
+import edu.ncsu.csc411.ps06.agent.RobotMetrics;
 import edu.ncsu.csc411.ps06.environment.Environment;
+import edu.ncsu.csc411.ps06.utils.AsyncLogSink;
+import edu.ncsu.csc411.ps06.utils.CancellationToken;
+import edu.ncsu.csc411.ps06.utils.Histogram;
+import edu.ncsu.csc411.ps06.utils.LogLevel;
+import edu.ncsu.csc411.ps06.utils.Logger;
 import edu.ncsu.csc411.ps06.utils.MapManager;
 
 /**
@@ -12,53 +22,158 @@ import edu.ncsu.csc411.ps06.utils.MapManager;
  */
 public class RunSimulation {
 	private Environment env;
-	private static int ITERATIONS = 1000;
-	private static boolean DEBUG = false;
 	private static String mapFile = "maps/public/map01.txt";
+	// Per-instance so that simulations can run side by side in one JVM
+	private SimulationConfig config;
+	private int stepsTaken;
+	// Shared with the robots, so cancelling also stops their planning
+	private final CancellationToken cancellation = new CancellationToken();
+	private final List<TickObserver> observers = new ArrayList<>();
+	// Shared with the robots; only reports their reasoning at LogLevel.DEBUG
+	private final Logger logger;
+	// The latency of every time step run so far
+	private final Histogram tickNanos = new Histogram();
 	
 	// Build the simulation with the following parameters
 	public RunSimulation(String mapFile, int iterations) {
 		this(mapFile, iterations, false);
 	}
 	public RunSimulation(String mapFile, int iterations, boolean debug) {
-		String[][] map = MapManager.loadMap(mapFile);
-		this.env = new Environment(map);
-		RunSimulation.ITERATIONS = iterations;
-		RunSimulation.DEBUG = debug;
+		this(mapFile, new SimulationConfig().withIterations(iterations).withDebug(debug)
+				.withLogLevel(debug ? LogLevel.INFO : LogLevel.OFF));
+	}
+	public RunSimulation(String mapFile, SimulationConfig config) {
+		this.env = new Environment(MapManager.loadTemplate(mapFile));
+		this.config = config;
+		this.logger = createLogger(config.getLogLevel());
+		for (Robot robot : this.env.getRobots()) {
+			robot.setRandomSeed(config.getSeed());
+			robot.setCancellationToken(this.cancellation);
+			robot.setLogger(this.logger);
+		}
 	}
 	
+	/**
+	 * Builds the Logger for a simulation run at the given level. Below
+	 * LogLevel.DEBUG the robots' step-by-step reasoning is never even
+	 * formatted, and the rare errors are printed directly; at DEBUG the
+	 * messages are printed from a background thread, so that a chatty
+	 * agent does not slow the simulation down to the console's pace.
+	 * @param level - how much the simulation reports
+	 * @return the Logger
+	 */
+	static Logger createLogger(LogLevel level) {
+		if (level == LogLevel.OFF)
+			return Logger.OFF;
+		if (level.includes(LogLevel.DEBUG))
+			return new Logger(level, new AsyncLogSink(System.out));
+		return new Logger(level, Logger.console());
+	}
+
 	public void disableSimErrors() {
-		RunSimulation.DEBUG = false;
+		this.config = this.config.withDebug(false);
+	}
+
+	/**
+	 * Asks the simulation to stop. A running run() returns at its next time
+	 * step, and a Robot that is planning gives up on the plan; a run that
+	 * has not started yet returns immediately. Safe to call from any thread.
+	 */
+	public void cancel() {
+		this.cancellation.cancel();
+	}
+
+	/**
+	 * Registers an observer to be called before the first time step and
+	 * after every time step of run().
+	 * @param observer - the observer to add
+	 */
+	public void addTickObserver(TickObserver observer) {
+		this.observers.add(observer);
+	}
+
+	/** @return the settings this simulation runs with */
+	public SimulationConfig getConfig() {
+		return this.config;
 	}
 	
 	// Iterate through the simulation, updating the environment at each time step
 	public void run() {
-		for (int i = 1; i <= RunSimulation.ITERATIONS; i++) {
+		SimulationConfig config = this.config;
+		if (config.hasTimeBudget())
+			this.cancellation.setDeadlineMillis(config.getTimeBudgetMillis());
+		notifyObservers(0);
+		for (int i = 1; i <= config.getIterations(); i++) {
+			// Cancelled or out of time counts the same as out of time steps
+			if (this.cancellation.isCancelled()) {
+				break;
+			}
+			this.stepsTaken = i;
+			long tickStart = System.nanoTime();
 			try {
 				// Wrapped in try/catch in case the Robot's decision results
 				// in a crash; we'll treat that the same as Action.DO_NOTHING
 				env.updateEnvironment();
 			} catch (Exception ex) {
-				if (RunSimulation.DEBUG) {
+				if (config.isDebug()) {
 					String error = "[ERROR AGENT CRASH AT TIME STEP %03d] %s\n";
 					System.out.printf(error, i, ex);
 				}
 			}
+			this.tickNanos.record(System.nanoTime() - tickStart);
+			notifyObservers(i);
 			if (env.goalConditionMet()) {
-				env.printPerformanceMeasure();
 				break;
 			}
 		}
 		
+		if (config.getLogLevel().includes(LogLevel.INFO))
+			printPerformanceMeasure();
+		this.logger.flush();
+	}
+
+	// Lets the robots' queued messages out first, so the summary comes last
+	private void printPerformanceMeasure() {
+		this.logger.flush();
 		env.printPerformanceMeasure();
 	}
 	
+	private void notifyObservers(int timeStep) {
+		for (TickObserver observer : this.observers) {
+			observer.tickCompleted(this.env, timeStep);
+		}
+	}
+	
+	/**
+	 * Takes a snapshot of where the time went in this simulation so far:
+	 * the latency of every time step and every Robot decision, and the
+	 * robots' planning counts. Call it from the thread that ran run(), or
+	 * once run() has returned.
+	 * @return the snapshot
+	 */
+	public SimulationMetrics getMetrics() {
+		List<RobotMetrics> robots = new ArrayList<>();
+		for (Robot robot : this.env.getRobots()) {
+			robots.add(robot.getMetrics());
+		}
+		return SimulationMetrics.of(this.tickNanos, robots);
+	}
+
 	public boolean goalConditionMet() {
 		return this.env.goalConditionMet();
 	}
 
+	/**
+	 * Returns how many time steps the last run() took: the step on which the
+	 * goal was reached, or the step it stopped on if it never was.
+	 * @return the number of time steps
+	 */
+	public int getStepsTaken() {
+		return this.stepsTaken;
+	}
+
 	public static void main(String[] args) {
-		RunSimulation sim = new RunSimulation(mapFile, ITERATIONS);
+		RunSimulation sim = new RunSimulation(mapFile, new SimulationConfig().withLogLevel(LogLevel.INFO));
 		sim.run();
     }
 }
\ No newline at end of file
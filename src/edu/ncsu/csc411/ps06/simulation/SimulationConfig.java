@@ -0,0 +1,119 @@
+package edu.ncsu.csc411.ps06.simulation;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import edu.ncsu.csc411.ps06.utils.LogLevel;
+
+/**
+ * The settings of a single RunSimulation. A SimulationConfig is
+ * immutable; each with* method returns a copy with one setting changed,
+ * so one config can be shared by any number of simulations running at
+ * the same time.
+ */
+public final class SimulationConfig {
+	/** The number of time steps a simulation runs by default. */
+	public static final int DEFAULT_ITERATIONS = 1000;
+	/** Marks a simulation with no time budget. */
+	public static final long NO_TIME_BUDGET = 0;
+
+	private final int iterations;
+	private final boolean debug;
+	private final long seed;
+	private final long timeBudgetMillis;
+	private final LogLevel logLevel;
+
+	/**
+	 * Builds the default config: DEFAULT_ITERATIONS time steps, debug off,
+	 * a freshly drawn seed, no time budget, and LogLevel.OFF, so a run
+	 * prints nothing unless asked to.
+	 */
+	public SimulationConfig() {
+		this(DEFAULT_ITERATIONS, false, ThreadLocalRandom.current().nextLong(), NO_TIME_BUDGET, LogLevel.OFF);
+	}
+
+	/**
+	 * Builds a config with every setting given.
+	 * @param iterations - the maximum number of time steps
+	 * @param debug - true to report agent crashes
+	 * @param seed - the seed for the agent's random choices
+	 * @param timeBudgetMillis - the wall time a run may take, or NO_TIME_BUDGET
+	 * @param logLevel - how much the simulation reports
+	 */
+	public SimulationConfig(int iterations, boolean debug, long seed, long timeBudgetMillis, LogLevel logLevel) {
+		if (iterations < 0)
+			throw new IllegalArgumentException("iterations must not be negative: " + iterations);
+		if (timeBudgetMillis < 0)
+			throw new IllegalArgumentException("timeBudgetMillis must not be negative: " + timeBudgetMillis);
+		if (logLevel == null)
+			throw new IllegalArgumentException("logLevel must not be null");
+		this.iterations = iterations;
+		this.debug = debug;
+		this.seed = seed;
+		this.timeBudgetMillis = timeBudgetMillis;
+		this.logLevel = logLevel;
+	}
+
+	/** @return the maximum number of time steps */
+	public int getIterations() { return this.iterations; }
+
+	/** @return true if agent crashes are reported */
+	public boolean isDebug() { return this.debug; }
+
+	/** @return the seed for the agent's random choices */
+	public long getSeed() { return this.seed; }
+
+	/** @return the wall time a run may take in milliseconds, or NO_TIME_BUDGET */
+	public long getTimeBudgetMillis() { return this.timeBudgetMillis; }
+
+	/** @return true if the run is limited by a time budget */
+	public boolean hasTimeBudget() { return this.timeBudgetMillis != NO_TIME_BUDGET; }
+
+	/** @return how much the simulation reports */
+	public LogLevel getLogLevel() { return this.logLevel; }
+
+	/**
+	 * @param iterations - the maximum number of time steps
+	 * @return a copy of this config with the given iterations
+	 */
+	public SimulationConfig withIterations(int iterations) {
+		return new SimulationConfig(iterations, this.debug, this.seed, this.timeBudgetMillis, this.logLevel);
+	}
+
+	/**
+	 * @param debug - true to report agent crashes
+	 * @return a copy of this config with the given debug flag
+	 */
+	public SimulationConfig withDebug(boolean debug) {
+		return new SimulationConfig(this.iterations, debug, this.seed, this.timeBudgetMillis, this.logLevel);
+	}
+
+	/**
+	 * @param seed - the seed for the agent's random choices
+	 * @return a copy of this config with the given seed
+	 */
+	public SimulationConfig withSeed(long seed) {
+		return new SimulationConfig(this.iterations, this.debug, seed, this.timeBudgetMillis, this.logLevel);
+	}
+
+	/**
+	 * @param timeBudgetMillis - the wall time a run may take, or NO_TIME_BUDGET
+	 * @return a copy of this config with the given time budget
+	 */
+	public SimulationConfig withTimeBudgetMillis(long timeBudgetMillis) {
+		return new SimulationConfig(this.iterations, this.debug, this.seed, timeBudgetMillis, this.logLevel);
+	}
+
+	/**
+	 * @param logLevel - how much the simulation reports
+	 * @return a copy of this config with the given log level
+	 */
+	public SimulationConfig withLogLevel(LogLevel logLevel) {
+		return new SimulationConfig(this.iterations, this.debug, this.seed, this.timeBudgetMillis, logLevel);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("SimulationConfig[iterations=%d, debug=%b, seed=%d, timeBudgetMillis=%d, logLevel=%s]",
+				this.iterations, this.debug, this.seed, this.timeBudgetMillis, this.logLevel);
+	}
+}
@@ -0,0 +1,169 @@
+package edu.ncsu.csc411.ps06.simulation;
+
+import edu.ncsu.csc411.ps06.agent.RobotMetrics;
+import edu.ncsu.csc411.ps06.utils.Histogram;
+
+/**
+ * A snapshot of where the time went in one or more simulation runs: the
+ * latency of every time step (Environment.updateEnvironment) and of every
+ * decision (Robot.getAction), the robots' planning counts, and the time
+ * the robots spent on their up-front solve and on building distance
+ * fields. Those two happen inside a few time steps, mostly the first, so
+ * they are counted in those steps' latencies as well. Snapshots
+ * of separate runs are combined with plus(), which merges the latency
+ * histograms, so a batch can report percentiles over all of its trials.
+ *
+ * Immutable; the histograms handed out are copies.
+ */
+public final class SimulationMetrics {
+	/** The metrics of no runs at all */
+	public static final SimulationMetrics EMPTY = new SimulationMetrics(0, new Histogram(), new Histogram(),
+			0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+
+	private final int runs;
+	private final Histogram tickNanos;
+	private final Histogram actionNanos;
+	private final long plans;
+	private final long searches;
+	private final long nodesExpanded;
+	private final long cacheHits;
+	private final long cacheMisses;
+	private final long replans;
+	private final long stuckDetections;
+	private final long solveNanos;
+	private final long solverStates;
+	private final long fieldBuilds;
+	private final long fieldBuildNanos;
+
+	private SimulationMetrics(int runs, Histogram tickNanos, Histogram actionNanos, long plans,
+			long searches, long nodesExpanded, long cacheHits, long cacheMisses, long replans,
+			long stuckDetections, long solveNanos, long solverStates, long fieldBuilds,
+			long fieldBuildNanos) {
+		this.runs = runs;
+		this.tickNanos = tickNanos;
+		this.actionNanos = actionNanos;
+		this.plans = plans;
+		this.searches = searches;
+		this.nodesExpanded = nodesExpanded;
+		this.cacheHits = cacheHits;
+		this.cacheMisses = cacheMisses;
+		this.replans = replans;
+		this.stuckDetections = stuckDetections;
+		this.solveNanos = solveNanos;
+		this.solverStates = solverStates;
+		this.fieldBuilds = fieldBuilds;
+		this.fieldBuildNanos = fieldBuildNanos;
+	}
+
+	/**
+	 * Takes a snapshot of one run.
+	 * @param tickNanos - the latency of each of the run's time steps
+	 * @param robots - the metrics of each of the run's robots
+	 * @return the snapshot
+	 */
+	static SimulationMetrics of(Histogram tickNanos, Iterable<RobotMetrics> robots) {
+		Histogram actionNanos = new Histogram();
+		long plans = 0, searches = 0, nodesExpanded = 0, cacheHits = 0, cacheMisses = 0;
+		long replans = 0, stuckDetections = 0, solveNanos = 0, solverStates = 0;
+		long fieldBuilds = 0, fieldBuildNanos = 0;
+		for (RobotMetrics robot : robots) {
+			actionNanos.add(robot.getActionNanos());
+			plans += robot.getPlans();
+			searches += robot.getSearches();
+			nodesExpanded += robot.getNodesExpanded();
+			cacheHits += robot.getCacheHits();
+			cacheMisses += robot.getCacheMisses();
+			replans += robot.getReplans();
+			stuckDetections += robot.getStuckDetections();
+			solveNanos += robot.getSolveNanos();
+			solverStates += robot.getSolverStates();
+			fieldBuilds += robot.getFieldBuilds();
+			fieldBuildNanos += robot.getFieldBuildNanos();
+		}
+		return new SimulationMetrics(1, new Histogram(tickNanos), actionNanos, plans, searches,
+				nodesExpanded, cacheHits, cacheMisses, replans, stuckDetections, solveNanos,
+				solverStates, fieldBuilds, fieldBuildNanos);
+	}
+
+	/**
+	 * Combines this snapshot with another.
+	 * @param other - the metrics of other runs
+	 * @return the metrics of both sets of runs together
+	 */
+	public SimulationMetrics plus(SimulationMetrics other) {
+		Histogram ticks = new Histogram(this.tickNanos);
+		ticks.add(other.tickNanos);
+		Histogram actions = new Histogram(this.actionNanos);
+		actions.add(other.actionNanos);
+		return new SimulationMetrics(this.runs + other.runs, ticks, actions, this.plans + other.plans,
+				this.searches + other.searches, this.nodesExpanded + other.nodesExpanded,
+				this.cacheHits + other.cacheHits, this.cacheMisses + other.cacheMisses,
+				this.replans + other.replans, this.stuckDetections + other.stuckDetections,
+				this.solveNanos + other.solveNanos, this.solverStates + other.solverStates,
+				this.fieldBuilds + other.fieldBuilds, this.fieldBuildNanos + other.fieldBuildNanos);
+	}
+
+	/** @return the number of runs combined into this snapshot */
+	public int getRuns() { return this.runs; }
+
+	/** @return the number of time steps run */
+	public long getTicks() { return this.tickNanos.getCount(); }
+
+	/** @return the latency of each time step, in nanoseconds */
+	public Histogram getTickNanos() { return new Histogram(this.tickNanos); }
+
+	/** @return the latency of each Robot.getAction call, in nanoseconds */
+	public Histogram getActionNanos() { return new Histogram(this.actionNanos); }
+
+	/** @return the time steps on which a robot had no plan and made one */
+	public long getPlans() { return this.plans; }
+
+	/** @return the A* searches run */
+	public long getSearches() { return this.searches; }
+
+	/** @return the cells expanded by all A* searches together */
+	public long getNodesExpanded() { return this.nodesExpanded; }
+
+	/** @return the path lookups answered from a path cache */
+	public long getCacheHits() { return this.cacheHits; }
+
+	/** @return the path lookups a path cache could not answer */
+	public long getCacheMisses() { return this.cacheMisses; }
+
+	/** @return the fraction of path lookups answered from a cache, or NaN if none */
+	public double getCacheHitRate() {
+		long lookups = this.cacheHits + this.cacheMisses;
+		return lookups == 0 ? Double.NaN : (double) this.cacheHits / lookups;
+	}
+
+	/** @return the plans and solutions dropped before they were finished */
+	public long getReplans() { return this.replans; }
+
+	/** @return the times stuck or loop detection fired */
+	public long getStuckDetections() { return this.stuckDetections; }
+
+	/** @return the time the robots' up-front solves took, in nanoseconds */
+	public long getSolveNanos() { return this.solveNanos; }
+
+	/** @return the search states the robots' up-front solves expanded */
+	public long getSolverStates() { return this.solverStates; }
+
+	/** @return the distance fields the robots built */
+	public long getFieldBuilds() { return this.fieldBuilds; }
+
+	/** @return the time spent building distance fields, in nanoseconds */
+	public long getFieldBuildNanos() { return this.fieldBuildNanos; }
+
+	@Override
+	public String toString() {
+		return String.format("SimulationMetrics[runs=%d, ticks=%d, tick p50/p99/max=%d/%d/%dns, "
+				+ "action p50/p99/max=%d/%d/%dns, plans=%d, searches=%d, nodes=%d, cacheHitRate=%.2f, "
+				+ "replans=%d, stuck=%d, solve=%dns/%d states, fields=%d in %dns]",
+				this.runs, getTicks(), this.tickNanos.getValueAtPercentile(50),
+				this.tickNanos.getValueAtPercentile(99), this.tickNanos.getMax(),
+				this.actionNanos.getValueAtPercentile(50), this.actionNanos.getValueAtPercentile(99),
+				this.actionNanos.getMax(), this.plans, this.searches, this.nodesExpanded,
+				getCacheHitRate(), this.replans, this.stuckDetections, this.solveNanos, this.solverStates,
+				this.fieldBuilds, this.fieldBuildNanos);
+	}
+}
@@ -0,0 +1,224 @@
+package edu.ncsu.csc411.ps06.simulation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntConsumer;
+
+import javax.swing.SwingUtilities;
+
+import edu.ncsu.csc411.ps06.agent.Robot;
+import edu.ncsu.csc411.ps06.environment.Environment;
+
+/**
+ * Runs a visualized simulation on its own thread, so that a Robot that
+ * plans slowly or prints a lot never blocks the Swing event dispatch
+ * thread. After every ticksPerFrame time steps the stepper redraws the
+ * changed cells into the MapRenderer's image under getLock(), records
+ * them as pending and publishes an immutable Frame of the status
+ * panel's values. The UI is then told, at most once until it catches
+ * up, to drain the pending cells and repaint them.
+ *
+ * With ticksPerFrame above 1 the steps in between are never drawn; the
+ * renderer merges their changes, so a frame costs the same however many
+ * steps it covers. If the UI falls behind, the cells of the frames it
+ * missed are merged as well and only the latest Frame is kept.
+ *
+ * The Environment must only be touched by the stepper once start() is
+ * called; the UI reads the image under getLock() and everything else
+ * from getFrame().
+ */
+class SimulationStepper implements Runnable {
+	private final Environment env;
+	private final MapRenderer renderer;
+	private final int iterations;
+	private final int delay;
+	private final int ticksPerFrame;
+	private final boolean debug;
+	private final Runnable onFrame;
+
+	private final Object lock = new Object();
+	private final AtomicBoolean framePending = new AtomicBoolean();
+	private volatile boolean stopped;
+	private volatile Frame frame;
+	private Thread thread;
+
+	// Cells redrawn but not yet repainted by the UI; guarded by lock
+	private final boolean[] pending;
+	private int[] pendingCells = new int[16];
+	private int pendingCount;
+	private boolean pendingAll;
+
+	/**
+	 * Builds a stepper and draws the first frame.
+	 * @param env - the Environment to run
+	 * @param renderer - the renderer listening to env
+	 * @param iterations - the maximum number of time steps
+	 * @param delay - the milliseconds between frames
+	 * @param ticksPerFrame - the time steps run for each frame drawn
+	 * @param debug - true to print agent crashes
+	 * @param onFrame - run on the event dispatch thread when a frame is ready
+	 */
+	SimulationStepper(Environment env, MapRenderer renderer, int iterations, int delay,
+			int ticksPerFrame, boolean debug, Runnable onFrame) {
+		this.env = env;
+		this.renderer = renderer;
+		this.iterations = iterations;
+		this.delay = delay;
+		this.ticksPerFrame = Math.max(1, ticksPerFrame);
+		this.debug = debug;
+		this.onFrame = onFrame;
+		this.pending = new boolean[env.getCellCount()];
+		// The first frame is shown by the window's first paint, not by onFrame
+		update(0, false);
+	}
+
+	/** Starts stepping on a new daemon thread. */
+	void start() {
+		this.thread = new Thread(this, "simulation-stepper");
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	/** Stops stepping after the current time step. */
+	void stop() {
+		this.stopped = true;
+	}
+
+	/** @return the lock held while the renderer's image is written */
+	Object getLock() {
+		return this.lock;
+	}
+
+	/** @return the most recently published frame */
+	Frame getFrame() {
+		return this.frame;
+	}
+
+	/**
+	 * Hands over the cells redrawn since the last call. Call on the event
+	 * dispatch thread.
+	 * @param cells - given each redrawn cell id, or -1 once if the whole
+	 *     map was redrawn
+	 */
+	void drainPending(IntConsumer cells) {
+		synchronized (this.lock) {
+			if (this.pendingAll) {
+				cells.accept(-1);
+			} else {
+				for (int i = 0; i < this.pendingCount; i++)
+					cells.accept(this.pendingCells[i]);
+			}
+			for (int i = 0; i < this.pendingCount; i++)
+				this.pending[this.pendingCells[i]] = false;
+			this.pendingCount = 0;
+			this.pendingAll = false;
+		}
+	}
+
+	@Override
+	public void run() {
+		int timeStepCount = 0;
+		boolean done = false;
+		while (!this.stopped && !done) {
+			long frameStart = System.nanoTime();
+			for (int i = 0; i < this.ticksPerFrame && !done; i++) {
+				try {
+					// Wrapped in try/catch in case the Robot's decision results
+					// in a crash; we'll treat that the same as Action.DO_NOTHING
+					this.env.updateEnvironment();
+				} catch (Exception ex) {
+					if (this.debug) {
+						String error = "[ERROR AGENT CRASH AT TIME STEP %03d] %s\n";
+						System.out.printf(error, timeStepCount, ex);
+					}
+				}
+				timeStepCount++;
+				done = timeStepCount == this.iterations || this.env.goalConditionMet();
+			}
+			publish(timeStepCount, done);
+
+			long remaining = this.delay - (System.nanoTime() - frameStart) / 1_000_000;
+			if (!done && remaining > 0) {
+				try {
+					Thread.sleep(remaining);
+				} catch (InterruptedException e) {
+					return;
+				}
+			}
+		}
+		if (done)
+			this.env.printPerformanceMeasure();
+	}
+
+	private void publish(int timeStep, boolean finished) {
+		update(timeStep, finished);
+
+		// Coalesce: if the UI has not run the last callback yet, it will
+		// pick up this frame's cells along with the last one's
+		if (this.framePending.compareAndSet(false, true)) {
+			SwingUtilities.invokeLater(() -> {
+				this.framePending.set(false);
+				this.onFrame.run();
+			});
+		}
+	}
+
+	/* Draws the changed cells and replaces the frame. */
+	private void update(int timeStep, boolean finished) {
+		synchronized (this.lock) {
+			this.renderer.flush(this::addPending);
+		}
+		List<List<String>> holdings = new ArrayList<>();
+		for (Robot robot : this.env.getRobots()) {
+			holdings.add(Collections.unmodifiableList(new ArrayList<>(this.env.getRobotHoldings(robot))));
+		}
+		this.frame = new Frame(timeStep, this.env.getNumRemainingChips(),
+				Collections.unmodifiableList(holdings), finished);
+	}
+
+	private void addPending(int cell) {
+		if (cell < 0) {
+			this.pendingAll = true;
+			return;
+		}
+		if (this.pending[cell])
+			return;
+		this.pending[cell] = true;
+		if (this.pendingCount == this.pendingCells.length)
+			this.pendingCells = Arrays.copyOf(this.pendingCells, this.pendingCount * 2);
+		this.pendingCells[this.pendingCount++] = cell;
+	}
+
+	/**
+	 * What the status panel shows after a time step. Immutable, so the UI
+	 * can read it while the simulation moves on.
+	 */
+	static final class Frame {
+		private final int timeStep;
+		private final int chipsRemaining;
+		private final List<List<String>> holdings;
+		private final boolean finished;
+
+		Frame(int timeStep, int chipsRemaining, List<List<String>> holdings, boolean finished) {
+			this.timeStep = timeStep;
+			this.chipsRemaining = chipsRemaining;
+			this.holdings = holdings;
+			this.finished = finished;
+		}
+
+		/** @return the number of time steps run */
+		int getTimeStep() { return this.timeStep; }
+
+		/** @return the chips left on the map */
+		int getChipsRemaining() { return this.chipsRemaining; }
+
+		/** @return each robot's holdings, in the order of getRobots() */
+		List<List<String>> getHoldings() { return this.holdings; }
+
+		/** @return true once the simulation has ended */
+		boolean isFinished() { return this.finished; }
+	}
+}
@@ -0,0 +1,124 @@
+package edu.ncsu.csc411.ps06.simulation;
+
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsEnvironment;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+import edu.ncsu.csc411.ps06.environment.TileStatus;
+import edu.ncsu.csc411.ps06.utils.LogLevel;
+import edu.ncsu.csc411.ps06.utils.Logger;
+
+/**
+ * Every sprite the simulation draws, read from sprite/ once and scaled to
+ * the tile size into a single image. Drawing a tile is then one blit out
+ * of the atlas, with no file access or scaling per frame.
+ *
+ * Sprites are drawn TILESIZE-1 pixels wide, leaving a one pixel gap
+ * between tiles. A sprite that cannot be read is left transparent.
+ */
+class SpriteAtlas {
+	private static final TileStatus[] STATUSES = TileStatus.values();
+	private static final int ROBOT = STATUSES.length;
+	private static final int SLOTS = ROBOT + 1;
+
+	private final int tileSize;
+	private final int spriteSize;
+	private final BufferedImage atlas;
+
+	/**
+	 * Loads and scales every sprite.
+	 * @param tileSize - the size of a tile in pixels
+	 * @param log - reports the sprites that cannot be read
+	 */
+	SpriteAtlas(int tileSize, Logger log) {
+		this.tileSize = tileSize;
+		this.spriteSize = Math.max(1, tileSize - 1);
+		this.atlas = createImage(SLOTS * this.spriteSize, this.spriteSize);
+
+		Graphics2D g = this.atlas.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		for (int slot = 0; slot < SLOTS; slot++) {
+			String file = fileOf(slot);
+			try {
+				BufferedImage sprite = ImageIO.read(new File(file));
+				if (sprite == null)
+					throw new IOException("Unsupported image format");
+				g.drawImage(sprite, slot * this.spriteSize, 0, this.spriteSize, this.spriteSize, null);
+			} catch (IOException e) {
+				log.log(LogLevel.ERROR, "An error has occurred while loading %s: %s", file, e.getMessage());
+			}
+		}
+		g.dispose();
+	}
+
+	/** @return the size of a tile in pixels */
+	int getTileSize() {
+		return this.tileSize;
+	}
+
+	/**
+	 * Draws a tile's sprite into its cell.
+	 * @param g - the graphics to draw on
+	 * @param status - the status of the tile
+	 * @param row - the tile's row
+	 * @param col - the tile's column
+	 */
+	void drawTile(Graphics g, TileStatus status, int row, int col) {
+		blit(g, status.ordinal(), row, col);
+	}
+
+	/**
+	 * Draws the robot's sprite into a cell.
+	 * @param g - the graphics to draw on
+	 * @param row - the robot's row
+	 * @param col - the robot's column
+	 */
+	void drawRobot(Graphics g, int row, int col) {
+		blit(g, ROBOT, row, col);
+	}
+
+	private void blit(Graphics g, int slot, int row, int col) {
+		int x = col * this.tileSize;
+		int y = row * this.tileSize;
+		int sx = slot * this.spriteSize;
+		g.drawImage(this.atlas, x, y, x + this.spriteSize, y + this.spriteSize,
+				sx, 0, sx + this.spriteSize, this.spriteSize, null);
+	}
+
+	/* An image in the screen's native format when there is a screen. */
+	static BufferedImage createImage(int width, int height) {
+		if (GraphicsEnvironment.isHeadless())
+			return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+				.getDefaultConfiguration().createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+	}
+
+	private static String fileOf(int slot) {
+		if (slot == ROBOT)
+			return "sprite/chip_forward.png";
+		switch (STATUSES[slot]) {
+			case BLANK: return "sprite/tile.png";
+			case CHIP: return "sprite/chip.png";
+			case WALL: return "sprite/wall.png";
+			case GOAL: return "sprite/goal.png";
+			case DOOR_GOAL: return "sprite/door_goal.png";
+			case DOOR_BLUE: return "sprite/door_blue.png";
+			case DOOR_GREEN: return "sprite/door_green.png";
+			case DOOR_RED: return "sprite/door_red.png";
+			case DOOR_YELLOW: return "sprite/door_yellow.png";
+			case KEY_BLUE: return "sprite/key_blue.png";
+			case KEY_GREEN: return "sprite/key_green.png";
+			case KEY_RED: return "sprite/key_red.png";
+			case KEY_YELLOW: return "sprite/key_yellow.png";
+			case WATER: return "sprite/water.png";
+			default: throw new IllegalStateException("No sprite for " + STATUSES[slot]);
+		}
+	}
+}
@@ -0,0 +1,18 @@
+package edu.ncsu.csc411.ps06.simulation;
+
+import edu.ncsu.csc411.ps06.environment.Environment;
+
+/**
+ * Watches a RunSimulation as it runs, for example to record or export
+ * what happens. Called on the thread running the simulation, between
+ * time steps, when the Environment is safe to read.
+ */
+public interface TickObserver {
+	/**
+	 * Called once with time step 0 before the first step, then after every
+	 * time step.
+	 * @param env - the simulation's Environment; must not be changed
+	 * @param timeStep - the number of time steps run so far
+	 */
+	void tickCompleted(Environment env, int timeStep);
+}
@@ -0,0 +1,112 @@
+package edu.ncsu.csc411.ps06.simulation;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs simulations on a dedicated pool of daemon threads with a timeout.
+ * When a trial times out, its simulation is cancelled rather than left
+ * running: RunSimulation checks its cancellation token every time step
+ * and the Robot's planners check it while they search, so the thread is
+ * free again shortly after the timeout instead of burning a core in the
+ * background while later trials run.
+ *
+ * The metrics of every run are added up as the runs end, timed out or
+ * not, so a test suite can see where its trials spent their time.
+ *
+ * The threads are daemons, so an executor that is never closed does not
+ * keep the JVM alive.
+ */
+public class TrialExecutor implements AutoCloseable {
+	private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+
+	private final ExecutorService pool;
+	// Guarded by this
+	private SimulationMetrics metrics = SimulationMetrics.EMPTY;
+
+	/**
+	 * Builds an executor with one thread per core.
+	 */
+	public TrialExecutor() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Builds an executor that runs up to threads simulations at once.
+	 * @param threads - the number of pool threads
+	 */
+	public TrialExecutor(int threads) {
+		String prefix = "trial-" + POOL_COUNT.incrementAndGet() + "-";
+		AtomicInteger threadCount = new AtomicInteger();
+		ThreadFactory factory = runnable -> {
+			Thread thread = new Thread(runnable, prefix + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+		this.pool = Executors.newFixedThreadPool(threads, factory);
+	}
+
+	/**
+	 * Starts a simulation without waiting for it.
+	 * @param sim - the simulation to run
+	 * @return a Future that completes when the run ends
+	 */
+	public Future<?> submit(RunSimulation sim) {
+		return this.pool.submit(() -> {
+			try {
+				sim.run();
+			} finally {
+				// Taken on the run's own thread, once it has stopped
+				addMetrics(sim.getMetrics());
+			}
+		});
+	}
+
+	/**
+	 * Returns the metrics of every run that has ended so far, combined.
+	 * @return the combined metrics
+	 */
+	public synchronized SimulationMetrics getMetrics() {
+		return this.metrics;
+	}
+
+	private synchronized void addMetrics(SimulationMetrics run) {
+		this.metrics = this.metrics.plus(run);
+	}
+
+	/**
+	 * Runs a simulation and waits up to timeoutMillis for it to finish. If
+	 * it does not, the simulation is cancelled before the timeout is
+	 * reported, so it stops at its next time step.
+	 * @param sim - the simulation to run
+	 * @param timeoutMillis - how long to wait
+	 * @throws InterruptedException if interrupted while waiting
+	 * @throws ExecutionException if the run itself threw
+	 * @throws TimeoutException if the run did not finish in time
+	 */
+	public void run(RunSimulation sim, long timeoutMillis)
+			throws InterruptedException, ExecutionException, TimeoutException {
+		Future<?> future = submit(sim);
+		try {
+			future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException | InterruptedException e) {
+			sim.cancel();
+			future.cancel(true);
+			throw e;
+		}
+	}
+
+	/**
+	 * Cancels queued trials and interrupts running ones.
+	 */
+	@Override
+	public void close() {
+		this.pool.shutdownNow();
+	}
+}
@@ -4,30 +4,24 @@ import java.awt.BorderLayout;
 import java.awt.Dimension;
 import java.awt.FlowLayout;
 import java.awt.Graphics;
-import java.awt.Graphics2D;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
-import java.io.File;
-import java.io.IOException;
-import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.TreeMap;
 
-import javax.imageio.ImageIO;
 import javax.swing.ImageIcon;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
-import javax.swing.Timer;
 
 import edu.ncsu.csc411.ps06.agent.Robot;
 import edu.ncsu.csc411.ps06.environment.Environment;
-import edu.ncsu.csc411.ps06.environment.Position;
-import edu.ncsu.csc411.ps06.environment.Tile;
 import edu.ncsu.csc411.ps06.utils.ConfigurationLoader;
+import edu.ncsu.csc411.ps06.utils.LogLevel;
+import edu.ncsu.csc411.ps06.utils.Logger;
 import edu.ncsu.csc411.ps06.utils.MapManager;
 
 /**
@@ -44,7 +38,7 @@ public class VisualizeSimulation extends JFrame {
 	private Environment env;
 	private String mapFile = "maps/public/map10.txt";
 	private String configFile = "config/configNormal.txt";
-	private Timer timer;
+	private SimulationStepper stepper;
 	
 	/* Builds the environment; while not necessary for this problem set,
 	 * this could be modified to allow for different types of environments,
@@ -65,45 +59,32 @@ public class VisualizeSimulation extends JFrame {
 		int TILESIZE = Integer.parseInt(properties.getProperty("TILESIZE", "50"));
 		int DELAY = Integer.parseInt(properties.getProperty("DELAY", "200"));
 		boolean DEBUG = Boolean.parseBoolean(properties.getProperty("DEBUG", "true"));
+		// Time steps run per frame drawn; above 1 the steps in between are skipped
+		int FAST_FORWARD = Integer.parseInt(properties.getProperty("FAST_FORWARD", "1"));
 		
 		// Currently loads the first public test case, but you can change the map file
 		// or make your own!
-		String[][] map = MapManager.loadMap(mapFile);
-		this.env = new Environment(map);
-		envPanel = new EnvironmentPanel(this.env, ITERATIONS, TILESIZE, DELAY, DEBUG);
-		statusPanel = new StatusPanel(this.env, TILESIZE);
+		this.env = new Environment(MapManager.loadTemplate(mapFile));
+		// With DEBUG on, the robot's reasoning is printed as it plays
+		Logger logger = RunSimulation.createLogger(DEBUG ? LogLevel.DEBUG : LogLevel.INFO);
+		for (Robot robot : this.env.getRobots()) {
+			robot.setLogger(logger);
+		}
+		MapRenderer renderer = new MapRenderer(this.env, new SpriteAtlas(TILESIZE, logger));
+		
+		// The simulation runs on its own thread so that slow planning never
+		// freezes the window; each frame it publishes is repainted here
+		this.stepper = new SimulationStepper(this.env, renderer, ITERATIONS, DELAY, FAST_FORWARD, DEBUG,
+				() -> {
+					envPanel.refresh();
+					statusPanel.repaint();
+				});
+		envPanel = new EnvironmentPanel(this.stepper, renderer, TILESIZE);
+		statusPanel = new StatusPanel(this.stepper, TILESIZE);
 		setLayout(new FlowLayout());
     	add(envPanel);
     	add(statusPanel);
-    	
-    	this.timer = new Timer(DELAY, new ActionListener() {
-			int timeStepCount = 0;
-			public void actionPerformed(ActionEvent e) {
-				try {
-					// Wrapped in try/catch in case the Robot's decision results
-					// in a crash; we'll treat that the same as Action.DO_NOTHING
-					env.updateEnvironment();
-				} catch (Exception ex) {
-					if (DEBUG) {
-						String error = "[ERROR AGENT CRASH AT TIME STEP %03d] %s\n";
-						System.out.printf(error, timeStepCount, ex);
-					}
-				}
-				repaint();
-				timeStepCount++;
-				
-				// 2) The simulation has iterated through the passed number of iterations
-				if (timeStepCount == ITERATIONS) {
-					timer.stop();
-					env.printPerformanceMeasure();
-				}
-				if (env.goalConditionMet()) {
-					timer.stop();
-					env.printPerformanceMeasure();
-				}
-			}
-		});
-		this.timer.start();
+    	this.stepper.start();
 	}
 	
 	public static void main(String[] args) {
@@ -119,99 +100,51 @@ public class VisualizeSimulation extends JFrame {
 
 @SuppressWarnings("serial")
 class EnvironmentPanel extends JPanel{
-	private Environment env;
-	private ArrayList<Robot> robots;
+	private SimulationStepper stepper;
+	private MapRenderer renderer;
 	public static int TILESIZE;
-	private static boolean DEBUG;
 	
-	// Designs a GUI Panel based on the dimensions of the Environment and implements 
-	// a Timer object to run the simulation. This timer will iterate through time-steps
-	// with a X ms delay (or wait X ms before updating again).
-	public EnvironmentPanel(Environment env, int iterations, int tilesize, int delay, boolean debug) {
-		TILESIZE = tilesize;	
-	    setPreferredSize(new Dimension(env.getCols()*TILESIZE, env.getRows()*TILESIZE));
-		this.env = env;
-		this.robots = env.getRobots();
-		EnvironmentPanel.DEBUG = debug;
+	// Designs a GUI Panel based on the dimensions of the Environment. The
+	// SimulationStepper draws into the renderer's offscreen map, and this
+	// panel copies the cells it reports onto the screen.
+	public EnvironmentPanel(SimulationStepper stepper, MapRenderer renderer, int tilesize) {
+		TILESIZE = tilesize;
+		BufferedImage image = renderer.getImage();
+	    setPreferredSize(new Dimension(image.getWidth(), image.getHeight()));
+		this.stepper = stepper;
+		this.renderer = renderer;
 	}
 	
 	/*
-	 * The paintComponent method draws all of the objects onto the
-	 * panel. This is updated at each time step when we call repaint().
+	 * Asks Swing to repaint the cells the stepper has redrawn since the
+	 * last frame.
+	 */
+	public void refresh() {
+		int cols = renderer.getImage().getWidth() / TILESIZE;
+		stepper.drainPending(cell -> {
+			if (cell < 0) {
+				repaint();
+			} else {
+				repaint((cell % cols) * TILESIZE, (cell / cols) * TILESIZE, TILESIZE, TILESIZE);
+			}
+		});
+	}
+	
+	/*
+	 * The paintComponent method copies the offscreen map onto the panel,
+	 * limited to the area Swing asked to repaint.
 	 */
 	@Override
 	protected void paintComponent(Graphics g) {
 		super.paintComponent(g);
-		// Paint Environment Tiles
-		Map<Position, Tile> tiles = env.getTiles();
-		for (Position pos : tiles.keySet()) {
-			switch(tiles.get(pos).getStatus()) {
-				case BLANK: 
-					drawSprite("sprite/tile.png", g, pos);
-					break;
-				case CHIP:
-					drawSprite("sprite/chip.png", g, pos);
-					break;
-				case WALL:
-					drawSprite("sprite/wall.png", g, pos);
-					break;
-				case GOAL:
-					drawSprite("sprite/goal.png", g, pos);
-					break;
-				case DOOR_GOAL:
-					drawSprite("sprite/door_goal.png", g, pos);
-					break;
-				case DOOR_BLUE:
-					drawSprite("sprite/door_blue.png", g, pos);
-					break;
-				case DOOR_GREEN:
-					drawSprite("sprite/door_green.png", g, pos);
-					break;
-				case DOOR_RED:
-					drawSprite("sprite/door_red.png", g, pos);
-					break;
-				case DOOR_YELLOW:
-					drawSprite("sprite/door_yellow.png", g, pos);
-					break;
-				case KEY_BLUE:
-					drawSprite("sprite/key_blue.png", g, pos);
-					break;
-				case KEY_GREEN:
-					drawSprite("sprite/key_green.png", g, pos);
-					break;
-				case KEY_RED:
-					drawSprite("sprite/key_red.png", g, pos);
-					break;
-				case KEY_YELLOW:
-					drawSprite("sprite/key_yellow.png", g, pos);
-					break;
-				case WATER:
-					drawSprite("sprite/water.png", g, pos);
-					break;
-				default:
-					break;
-			}
-	    }
-		// Paint Robot
-		for(Robot robot : robots) {
-			Position robotPos = env.getRobotPosition(robot);
-			drawSprite("sprite/chip_forward.png", g, robotPos);
+		Rectangle clip = g.getClipBounds();
+		if (clip == null) {
+			clip = new Rectangle(0, 0, getWidth(), getHeight());
 		}
-	}
-	
-	private void drawSprite(String string, Graphics g, Position p) {
-		Graphics2D g2 = (Graphics2D)g;
-		BufferedImage sprite;
-		try {
-			sprite = ImageIO.read(new File(string));
-			g2.drawImage(sprite, p.getCol() * TILESIZE, p.getRow() * TILESIZE, TILESIZE-1, TILESIZE-1, this);
-		} catch (IOException e) {
-			if (EnvironmentPanel.DEBUG) {
-				String template = "An error has occurred while drawing %s at Position %s";
-				String line = String.format(template, string, p);
-				System.out.println(line);
-				e.printStackTrace();
-			}
+		int x2 = clip.x + clip.width;
+		int y2 = clip.y + clip.height;
+		synchronized (stepper.getLock()) {
+			g.drawImage(renderer.getImage(), clip.x, clip.y, x2, y2, clip.x, clip.y, x2, y2, null);
 		}
 	}
 }
@@ -222,12 +155,12 @@ class StatusPanel extends JPanel{
 	private JPanel chipsPanel;
 	private JPanel inventoryPanel;
 	
-	public StatusPanel(Environment env, int tilesize) {
+	public StatusPanel(SimulationStepper stepper, int tilesize) {
 		TILESIZE = tilesize;
 		setPreferredSize(new Dimension(4*TILESIZE, 4*TILESIZE));
 		setLayout(new BorderLayout());
-		this.chipsPanel = new ChipsPanel(env);
-		this.inventoryPanel = new InventoryPanel(env);
+		this.chipsPanel = new ChipsPanel(stepper);
+		this.inventoryPanel = new InventoryPanel(stepper);
 		
 		JPanel p = new JPanel(new BorderLayout());
 		p.add(chipsPanel, BorderLayout.NORTH);
@@ -244,16 +177,16 @@ class StatusPanel extends JPanel{
 
 @SuppressWarnings("serial")
 class ChipsPanel extends JPanel{
-	private Environment env;
+	private SimulationStepper stepper;
 	private JLabel header;
 	private JLabel number;
 	
-	public ChipsPanel(Environment env) {
-		this.env = env;
+	public ChipsPanel(SimulationStepper stepper) {
+		this.stepper = stepper;
 		
 		this.header = new JLabel("Chips Remaining");
 		this.header.setHorizontalAlignment(JLabel.CENTER);
-		this.number = new JLabel(this.env.getNumRemainingChips()+"");
+		this.number = new JLabel(this.stepper.getFrame().getChipsRemaining()+"");
 		this.number.setHorizontalAlignment(JLabel.CENTER);
 		
 		setLayout(new BorderLayout());
@@ -264,22 +197,20 @@ class ChipsPanel extends JPanel{
 	@Override
 	protected void paintComponent(Graphics g) {
 		super.paintComponent(g);
-		this.number.setText(this.env.getNumRemainingChips()+"");
+		this.number.setText(this.stepper.getFrame().getChipsRemaining()+"");
 	}
 }
 
 @SuppressWarnings("serial")
 class InventoryPanel extends JPanel {
-	private Environment env;
-	private ArrayList<Robot> robots;
+	private SimulationStepper stepper;
 	private Map<String, Boolean> itemStatus;
 	private JLabel[] icons;
 	private ImageIcon[] keyIcons;
 	
-	public InventoryPanel(Environment env) {
-		this.env = env;
+	public InventoryPanel(SimulationStepper stepper) {
+		this.stepper = stepper;
 		setLayout(new FlowLayout(FlowLayout.CENTER, 0, 0));
-		this.robots = env.getRobots();
 		this.itemStatus = new TreeMap<String, Boolean>();
 		this.itemStatus.put("KEY_BLUE", false);
 		this.itemStatus.put("KEY_GREEN", false);
@@ -299,8 +230,7 @@ class InventoryPanel extends JPanel {
 	}
 	
 	public void updateHoldings() {
-		for(Robot robot : robots) {
-			ArrayList<String> inventory = env.getRobotHoldings(robot);
+		for(List<String> inventory : stepper.getFrame().getHoldings()) {
 			for(Entry<String, Boolean> entry : this.itemStatus.entrySet()) {
 				String key = entry.getKey();
 				if (inventory.contains(key)) {
@@ -323,8 +253,7 @@ class InventoryPanel extends JPanel {
 		updateHoldings();
 		
 		// Paint Item Tiles
-		for(Robot robot : robots) {
-			ArrayList<String> inventory = env.getRobotHoldings(robot);
+		for(List<String> inventory : stepper.getFrame().getHoldings()) {
 			int count = 0;
 			for(Entry<String, Boolean> entry : this.itemStatus.entrySet()) {
 				String key = entry.getKey();
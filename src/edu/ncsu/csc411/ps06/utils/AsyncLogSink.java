@@ -0,0 +1,130 @@
+package edu.ncsu.csc411.ps06.utils;
+
+import java.io.PrintStream;
+
+/**
+ * A Logger.Sink that queues messages in a fixed-size ring buffer and
+ * prints them from a background thread, so that a debug run's logging
+ * never makes the simulation wait on the console. When the buffer is
+ * full, new messages are dropped rather than blocking the caller, and the
+ * number dropped is printed once the writer catches up.
+ *
+ * The writer is a daemon thread started by the first message; it stops
+ * once the buffer has stayed empty for a second, and the next message
+ * starts another, so an idle sink holds no thread. Safe to write to from
+ * any thread.
+ */
+public final class AsyncLogSink implements Logger.Sink {
+	/** The number of messages buffered unless another capacity is given */
+	public static final int DEFAULT_CAPACITY = 8192;
+	private static final long IDLE_MILLIS = 1000;
+
+	private final PrintStream out;
+	// Messages waiting to be printed, oldest at head; guarded by this
+	private final String[] buffer;
+	private int head;
+	private int count;
+	private long dropped;
+	private boolean writerRunning;
+	// True while the writer prints a batch it has taken out of the buffer
+	private boolean writing;
+
+	/**
+	 * Builds a sink with the default capacity.
+	 * @param out - the stream to print to
+	 */
+	public AsyncLogSink(PrintStream out) {
+		this(out, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Builds a sink.
+	 * @param out - the stream to print to
+	 * @param capacity - the number of messages buffered before new ones
+	 *     are dropped
+	 */
+	public AsyncLogSink(PrintStream out, int capacity) {
+		if (capacity < 1)
+			throw new IllegalArgumentException("capacity must be at least 1");
+		this.out = out;
+		this.buffer = new String[capacity];
+	}
+
+	@Override
+	public synchronized void write(LogLevel level, String message) {
+		if (this.count == this.buffer.length) {
+			this.dropped++;
+			return;
+		}
+		this.buffer[(this.head + this.count) % this.buffer.length] = message;
+		this.count++;
+		if (!this.writerRunning) {
+			this.writerRunning = true;
+			Thread writer = new Thread(this::drain, "log-writer");
+			writer.setDaemon(true);
+			writer.start();
+		} else if (this.count == 1) {
+			notifyAll();
+		}
+	}
+
+	/**
+	 * Waits until every message buffered so far has been printed.
+	 */
+	@Override
+	public synchronized void flush() {
+		boolean interrupted = false;
+		while (this.count > 0 || this.writing) {
+			try {
+				wait();
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted)
+			Thread.currentThread().interrupt();
+	}
+
+	/* The writer thread: takes everything buffered, prints it outside the
+	 * lock, and repeats until the buffer stays empty. */
+	private void drain() {
+		String[] batch = new String[this.buffer.length];
+		while (true) {
+			int n;
+			long lost;
+			synchronized (this) {
+				this.writing = false;
+				// Wakes flush() once the last batch is out
+				notifyAll();
+				if (this.count == 0) {
+					try {
+						wait(IDLE_MILLIS);
+					} catch (InterruptedException e) {
+						// Stop as if idle; the next message starts a new writer
+					}
+					if (this.count == 0) {
+						this.writerRunning = false;
+						return;
+					}
+				}
+				n = this.count;
+				for (int i = 0; i < n; i++) {
+					int slot = (this.head + i) % this.buffer.length;
+					batch[i] = this.buffer[slot];
+					this.buffer[slot] = null;
+				}
+				this.head = (this.head + n) % this.buffer.length;
+				this.count = 0;
+				lost = this.dropped;
+				this.dropped = 0;
+				this.writing = true;
+			}
+			for (int i = 0; i < n; i++) {
+				this.out.println(batch[i]);
+				batch[i] = null;
+			}
+			if (lost > 0)
+				this.out.printf("[%d log messages dropped]%n", lost);
+		}
+	}
+}
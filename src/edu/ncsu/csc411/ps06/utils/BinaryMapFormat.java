@@ -0,0 +1,195 @@
+package edu.ncsu.csc411.ps06.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import edu.ncsu.csc411.ps06.environment.MapTemplate;
+
+/**
+ * Reads and writes maps in a compact binary format, for maps too large to
+ * load quickly from text. The file is memory-mapped and decoded straight
+ * into a MapTemplate, with no per-cell Strings.
+ *
+ * Layout, big-endian:
+ * <pre>
+ *   4 bytes  magic "CHPM"
+ *   1 byte   version (1)
+ *   1 byte   flags; bit 0 set means the cells are run-length encoded
+ *   4 bytes  rows
+ *   4 bytes  cols
+ *   cells    rows * cols codes, row-major
+ * </pre>
+ * A code is a TileStatus ordinal, or MapTemplate.START (127) for a robot's
+ * starting cell. Run-length encoded cells are a sequence of runs, each an
+ * unsigned LEB128 varint count followed by the code repeated count times.
+ *
+ * Usage: BinaryMapFormat [--rle] source.txt|directory [target.bin]
+ * converts a text map, or every .txt map in a directory, to .bin files.
+ */
+public class BinaryMapFormat {
+  /** The first four bytes of every binary map. */
+  public static final int MAGIC = 0x4348504D; // "CHPM"
+  /** The format version written by this class. */
+  public static final int VERSION = 1;
+  /** The flag bit marking run-length encoded cells. */
+  public static final int FLAG_RLE = 1;
+
+  private static final int HEADER_BYTES = 14;
+
+  /**
+   * Returns true if the filename looks like a binary map.
+   * @param filename - a map filename
+   * @return true for names ending in .bin
+   */
+  public static boolean isBinary(String filename) {
+    return filename.endsWith(".bin");
+  }
+
+  /**
+   * Memory-maps a binary map file and decodes it into a template.
+   * @param path - the file to read
+   * @return the parsed template
+   * @throws IOException if the file cannot be read or is not a valid map
+   */
+  public static MapTemplate read(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size < HEADER_BYTES)
+        throw new IOException(path + " is too short to be a binary map");
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      return decode(buffer, path.toString());
+    }
+  }
+
+  /**
+   * Writes a template as a binary map.
+   * @param template - the map to write
+   * @param path - the file to create or replace
+   * @param rle - true to run-length encode the cells
+   * @throws IOException if the file cannot be written
+   */
+  public static void write(MapTemplate template, Path path, boolean rle) throws IOException {
+    try (OutputStream file = Files.newOutputStream(path);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+      out.writeInt(MAGIC);
+      out.writeByte(VERSION);
+      out.writeByte(rle ? FLAG_RLE : 0);
+      out.writeInt(template.getRows());
+      out.writeInt(template.getCols());
+
+      int cells = template.getRows() * template.getCols();
+      if (!rle) {
+        for (int cell = 0; cell < cells; cell++)
+          out.writeByte(template.getCode(cell));
+        return;
+      }
+      for (int cell = 0; cell < cells; ) {
+        byte code = template.getCode(cell);
+        int run = 1;
+        while (cell + run < cells && template.getCode(cell + run) == code)
+          run++;
+        writeVarint(out, run);
+        out.writeByte(code);
+        cell += run;
+      }
+    }
+  }
+
+  private static MapTemplate decode(ByteBuffer buffer, String name) throws IOException {
+    try {
+      if (buffer.getInt() != MAGIC)
+        throw new IOException(name + " is not a binary map");
+      int version = buffer.get();
+      if (version != VERSION)
+        throw new IOException(name + " has unsupported version " + version);
+      int flags = buffer.get();
+      int rows = buffer.getInt();
+      int cols = buffer.getInt();
+      if (rows <= 0 || cols <= 0 || (long) rows * cols > Integer.MAX_VALUE)
+        throw new IOException(name + " has invalid dimensions " + rows + "x" + cols);
+
+      byte[] codes = new byte[rows * cols];
+      if ((flags & FLAG_RLE) == 0) {
+        buffer.get(codes);
+      } else {
+        for (int cell = 0; cell < codes.length; ) {
+          int run = readVarint(buffer);
+          byte code = buffer.get();
+          if (run <= 0 || run > codes.length - cell)
+            throw new IOException(name + " has a run past the end of the map");
+          for (int end = cell + run; cell < end; cell++)
+            codes[cell] = code;
+        }
+      }
+      return new MapTemplate(rows, cols, codes);
+    } catch (BufferUnderflowException e) {
+      throw new IOException(name + " is truncated", e);
+    } catch (IllegalArgumentException e) {
+      throw new IOException(name + ": " + e.getMessage(), e);
+    }
+  }
+
+  private static void writeVarint(DataOutputStream out, int value) throws IOException {
+    while ((value & ~0x7F) != 0) {
+      out.writeByte((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.writeByte(value);
+  }
+
+  private static int readVarint(ByteBuffer buffer) throws IOException {
+    int value = 0;
+    for (int shift = 0; shift < 35; shift += 7) {
+      int b = buffer.get();
+      value |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0)
+        return value;
+    }
+    throw new IOException("Malformed run length");
+  }
+
+  /* Converts one text map to binary, next to it unless a target is given. */
+  private static void convert(File source, File target, boolean rle) throws IOException {
+    MapTemplate template = TextMapFormat.read(source.toPath());
+    write(template, target.toPath(), rle);
+    System.out.printf("%s -> %s (%dx%d, %d bytes)%n", source, target,
+        template.getRows(), template.getCols(), target.length());
+  }
+
+  private static File binaryName(File source) {
+    String name = source.getName();
+    int dot = name.lastIndexOf('.');
+    return new File(source.getParentFile(), (dot < 0 ? name : name.substring(0, dot)) + ".bin");
+  }
+
+  public static void main(String[] args) throws IOException {
+    boolean rle = args.length > 0 && args[0].equals("--rle");
+    int first = rle ? 1 : 0;
+    if (args.length <= first) {
+      System.out.println("Usage: BinaryMapFormat [--rle] source.txt|directory [target.bin]");
+      return;
+    }
+
+    File source = new File(args[first]);
+    File[] maps = source.listFiles((dir, name) -> name.endsWith(".txt"));
+    if (maps == null) {
+      File target = args.length > first + 1 ? Paths.get(args[first + 1]).toFile() : binaryName(source);
+      convert(source, target, rle);
+      return;
+    }
+    for (File map : maps) {
+      convert(map, binaryName(map), rle);
+    }
+  }
+}
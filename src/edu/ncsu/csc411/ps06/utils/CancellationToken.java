@@ -0,0 +1,47 @@
+package edu.ncsu.csc411.ps06.utils;
+
+/**
+ * A flag that long-running work polls to find out it should stop. The
+ * token is cancelled either explicitly, by cancel(), or implicitly once
+ * an optional deadline passes. Polling is cheap, so loops can check it
+ * every iteration or every few hundred iterations.
+ *
+ * Safe to cancel from any thread.
+ */
+public final class CancellationToken {
+	private volatile boolean cancelled;
+	private volatile boolean hasDeadline;
+	private volatile long deadlineNanos;
+
+	/**
+	 * Cancels the token. Work that polls it stops at its next check.
+	 */
+	public void cancel() {
+		this.cancelled = true;
+	}
+
+	/**
+	 * Arranges for the token to cancel itself after the given time.
+	 * Replaces any earlier deadline.
+	 * @param millis - the time from now until the deadline
+	 */
+	public void setDeadlineMillis(long millis) {
+		this.deadlineNanos = System.nanoTime() + millis * 1_000_000L;
+		this.hasDeadline = true;
+	}
+
+	/**
+	 * Returns true once the token has been cancelled or its deadline has
+	 * passed.
+	 * @return true if work should stop
+	 */
+	public boolean isCancelled() {
+		if (this.cancelled)
+			return true;
+		if (this.hasDeadline && System.nanoTime() - this.deadlineNanos >= 0) {
+			this.cancelled = true;
+			return true;
+		}
+		return false;
+	}
+}
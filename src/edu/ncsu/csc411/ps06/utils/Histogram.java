@@ -0,0 +1,149 @@
+package edu.ncsu.csc411.ps06.utils;
+
+import java.util.Arrays;
+
+/**
+ * Counts non-negative long values, such as latencies in nanoseconds, in
+ * log-linear buckets in the style of HdrHistogram. Values below 128 are
+ * counted exactly; above that, every power of two is split into 64
+ * buckets, so a percentile is never off by more than about 1.6% however
+ * wide the range of values. Recording is a few shifts and an array
+ * increment, and the bucket array only grows as far as the largest value
+ * seen, so a histogram of microsecond latencies stays a few kilobytes.
+ *
+ * Histograms of different runs are combined with add(). Not thread-safe.
+ */
+public final class Histogram {
+	// Values below 2^SUB_BITS are exact; above, each power of two gets
+	// 2^(SUB_BITS - 1) buckets
+	private static final int SUB_BITS = 7;
+	private static final int HALF = 1 << (SUB_BITS - 1);
+
+	private long[] counts = new long[0];
+	private long count;
+	private long total;
+	private long min = Long.MAX_VALUE;
+	private long max;
+
+	/**
+	 * Builds an empty histogram.
+	 */
+	public Histogram() {
+	}
+
+	/**
+	 * Builds a copy of another histogram.
+	 * @param other - the histogram to copy
+	 */
+	public Histogram(Histogram other) {
+		this.counts = other.counts.clone();
+		this.count = other.count;
+		this.total = other.total;
+		this.min = other.min;
+		this.max = other.max;
+	}
+
+	/**
+	 * Counts a value. Negative values are counted as 0.
+	 * @param value - the value
+	 */
+	public void record(long value) {
+		if (value < 0)
+			value = 0;
+		int index = indexOf(value);
+		if (index >= this.counts.length)
+			this.counts = Arrays.copyOf(this.counts, Math.max(index + 1, this.counts.length + HALF));
+		this.counts[index]++;
+		this.count++;
+		this.total += value;
+		if (value < this.min)
+			this.min = value;
+		if (value > this.max)
+			this.max = value;
+	}
+
+	/**
+	 * Adds every value counted by another histogram to this one.
+	 * @param other - the histogram to add
+	 */
+	public void add(Histogram other) {
+		if (other.count == 0)
+			return;
+		if (other.counts.length > this.counts.length)
+			this.counts = Arrays.copyOf(this.counts, other.counts.length);
+		for (int i = 0; i < other.counts.length; i++)
+			this.counts[i] += other.counts[i];
+		this.count += other.count;
+		this.total += other.total;
+		this.min = Math.min(this.min, other.min);
+		this.max = Math.max(this.max, other.max);
+	}
+
+	/** @return the number of values counted */
+	public long getCount() {
+		return this.count;
+	}
+
+	/** @return the smallest value counted, or 0 if none */
+	public long getMin() {
+		return this.count == 0 ? 0 : this.min;
+	}
+
+	/** @return the largest value counted, or 0 if none */
+	public long getMax() {
+		return this.max;
+	}
+
+	/** @return the sum of the values counted */
+	public long getTotal() {
+		return this.total;
+	}
+
+	/** @return the mean of the values counted, or NaN if none */
+	public double getMean() {
+		return this.count == 0 ? Double.NaN : (double) this.total / this.count;
+	}
+
+	/**
+	 * Returns the nearest-rank percentile of the values counted, as the
+	 * largest value its bucket could hold, but never above getMax().
+	 * @param percentile - between 0 and 100
+	 * @return the value at that percentile, or 0 if none were counted
+	 */
+	public long getValueAtPercentile(double percentile) {
+		if (this.count == 0)
+			return 0;
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * this.count));
+		long seen = 0;
+		for (int i = 0; i < this.counts.length; i++) {
+			seen += this.counts[i];
+			if (seen >= rank)
+				return Math.min(this.max, highestValueAt(i));
+		}
+		return this.max;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("Histogram[count=%d, min=%d, p50=%d, p90=%d, p99=%d, max=%d]",
+				this.count, getMin(), getValueAtPercentile(50), getValueAtPercentile(90),
+				getValueAtPercentile(99), this.max);
+	}
+
+	/* The bucket of a value: its top SUB_BITS bits, offset by its magnitude. */
+	private static int indexOf(long value) {
+		if (value < (1 << SUB_BITS))
+			return (int) value;
+		int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BITS - 1);
+		return shift * HALF + (int) (value >>> shift);
+	}
+
+	/* The largest value that falls in a bucket. */
+	private static long highestValueAt(int index) {
+		if (index < (1 << SUB_BITS))
+			return index;
+		int shift = index / HALF - 1;
+		long lowest = (long) (index - shift * HALF) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+}
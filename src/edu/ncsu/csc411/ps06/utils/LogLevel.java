@@ -0,0 +1,29 @@
+package edu.ncsu.csc411.ps06.utils;
+
+/**
+ * How much a simulation reports while it runs, from nothing at all to
+ * the agent's step-by-step reasoning. Each level includes every level
+ * before it, except OFF.
+ */
+public enum LogLevel {
+	/** Report nothing */
+	OFF,
+	/** Report crashes and other failures */
+	ERROR,
+	/** Also report recoverable problems */
+	WARN,
+	/** Also report the outcome of each simulation */
+	INFO,
+	/** Also report the agent's decisions at every time step */
+	DEBUG;
+
+	/**
+	 * Returns true if messages at the given level should be reported when
+	 * running at this level.
+	 * @param level - the level of a message
+	 * @return true if the message is reported
+	 */
+	public boolean includes(LogLevel level) {
+		return level != OFF && level.ordinal() <= this.ordinal();
+	}
+}
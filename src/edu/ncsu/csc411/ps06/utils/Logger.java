@@ -0,0 +1,191 @@
+package edu.ncsu.csc411.ps06.utils;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+/**
+ * A small logging facade for code that runs every time step, such as the
+ * agent. Every message has a LogLevel, and the level is checked before the
+ * message is built: a format and its arguments only become a String when
+ * the message will be written, and whole-number arguments are taken as a
+ * primitive long rather than boxed, so a disabled call costs a comparison
+ * and allocates nothing. Where an argument is itself expensive to compute,
+ * guard the call with isEnabled.
+ *
+ * Messages go to a Sink. console() prints them as they come; AsyncLogSink
+ * hands them to a background thread so the caller never waits on the
+ * console.
+ */
+public final class Logger {
+	/**
+	 * Where a Logger's messages are written. Called only for messages the
+	 * Logger's level includes.
+	 */
+	public interface Sink {
+		/**
+		 * Writes one message.
+		 * @param level - the level of the message
+		 * @param message - the message
+		 */
+		void write(LogLevel level, String message);
+
+		/**
+		 * Returns once every message written so far has been written out.
+		 */
+		default void flush() {
+		}
+	}
+
+	/** Reports nothing; what code that was given no Logger uses */
+	public static final Logger OFF = new Logger(LogLevel.OFF, (level, message) -> {});
+
+	private final LogLevel level;
+	private final Sink sink;
+
+	/**
+	 * Builds a Logger that passes on the messages its level includes.
+	 * @param level - the most detailed level reported
+	 * @param sink - where reported messages are written
+	 */
+	public Logger(LogLevel level, Sink sink) {
+		if (level == null)
+			throw new IllegalArgumentException("level must not be null");
+		if (sink == null)
+			throw new IllegalArgumentException("sink must not be null");
+		this.level = level;
+		this.sink = sink;
+	}
+
+	/**
+	 * Returns a Sink that prints each message on its own line to whatever
+	 * System.out is at the time, on the calling thread.
+	 * @return the sink
+	 */
+	public static Sink console() {
+		return (level, message) -> System.out.println(message);
+	}
+
+	/** @return the most detailed level reported */
+	public LogLevel getLevel() {
+		return this.level;
+	}
+
+	/**
+	 * Returns true if messages at the given level are reported.
+	 * @param level - the level of a message
+	 * @return true if the message would be written
+	 */
+	public boolean isEnabled(LogLevel level) {
+		return this.level.includes(level);
+	}
+
+	/**
+	 * Reports a message.
+	 * @param level - the level of the message
+	 * @param message - the message
+	 */
+	public void log(LogLevel level, String message) {
+		if (this.level.includes(level))
+			this.sink.write(level, message);
+	}
+
+	/**
+	 * Reports a message built with String.format, if the level is reported.
+	 * @param level - the level of the message
+	 * @param format - the format of the message
+	 * @param arg - the value for the format's specifier
+	 */
+	public void log(LogLevel level, String format, Object arg) {
+		if (this.level.includes(level))
+			this.sink.write(level, String.format(format, arg));
+	}
+
+	/**
+	 * Reports a message built with String.format, if the level is reported.
+	 * The number is only boxed once the message will be written.
+	 * @param level - the level of the message
+	 * @param format - the format of the message
+	 * @param arg - the number for the format's specifier
+	 */
+	public void log(LogLevel level, String format, long arg) {
+		if (this.level.includes(level))
+			this.sink.write(level, String.format(format, arg));
+	}
+
+	/**
+	 * Reports a message built with String.format, if the level is reported.
+	 * @param level - the level of the message
+	 * @param format - the format of the message
+	 * @param arg1 - the value for the format's first specifier
+	 * @param arg2 - the value for the format's second specifier
+	 */
+	public void log(LogLevel level, String format, Object arg1, Object arg2) {
+		if (this.level.includes(level))
+			this.sink.write(level, String.format(format, arg1, arg2));
+	}
+
+	/** @param message - a message at LogLevel.ERROR */
+	public void error(String message) {
+		log(LogLevel.ERROR, message);
+	}
+
+	/**
+	 * @param format - the format of a message at LogLevel.ERROR
+	 * @param arg - the value for the format's specifier
+	 */
+	public void error(String format, Object arg) {
+		log(LogLevel.ERROR, format, arg);
+	}
+
+	/**
+	 * Reports a failure at LogLevel.ERROR, followed by the stack trace of
+	 * what caused it. The trace is only printed into the message if the
+	 * level is reported.
+	 * @param message - what failed
+	 * @param thrown - the exception that caused it
+	 */
+	public void error(String message, Throwable thrown) {
+		if (!this.level.includes(LogLevel.ERROR))
+			return;
+		StringWriter trace = new StringWriter();
+		thrown.printStackTrace(new PrintWriter(trace));
+		this.sink.write(LogLevel.ERROR, message + ": " + trace.toString().trim());
+	}
+
+	/** @param message - a message at LogLevel.DEBUG */
+	public void debug(String message) {
+		log(LogLevel.DEBUG, message);
+	}
+
+	/**
+	 * @param format - the format of a message at LogLevel.DEBUG
+	 * @param arg - the value for the format's specifier
+	 */
+	public void debug(String format, Object arg) {
+		log(LogLevel.DEBUG, format, arg);
+	}
+
+	/**
+	 * @param format - the format of a message at LogLevel.DEBUG
+	 * @param arg - the number for the format's specifier, boxed only if reported
+	 */
+	public void debug(String format, long arg) {
+		log(LogLevel.DEBUG, format, arg);
+	}
+
+	/**
+	 * @param format - the format of a message at LogLevel.DEBUG
+	 * @param arg1 - the value for the format's first specifier
+	 * @param arg2 - the value for the format's second specifier
+	 */
+	public void debug(String format, Object arg1, Object arg2) {
+		log(LogLevel.DEBUG, format, arg1, arg2);
+	}
+
+	/**
+	 * Returns once every message reported so far has been written out.
+	 */
+	public void flush() {
+		this.sink.flush();
+	}
+}
@@ -0,0 +1,677 @@
+package edu.ncsu.csc411.ps06.utils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+
+import edu.ncsu.csc411.ps06.environment.Environment;
+import edu.ncsu.csc411.ps06.environment.MapTemplate;
+import edu.ncsu.csc411.ps06.environment.TileStatus;
+
+/**
+ * Generates large, solvable maps from a seed, for stress testing the agent
+ * on maps far bigger than the public ones. The same settings and seed
+ * always give the same map.
+ *
+ * A map is built in layers:
+ * <ol>
+ * <li>a maze of one-cell corridors, carved by a depth-first search;</li>
+ * <li>open rectangular rooms cut into the maze;</li>
+ * <li>braiding, which knocks through some dead ends to make loops;</li>
+ * <li>the goal vault: the goal in the far corner, in a dead end closed
+ * off by the goal door;</li>
+ * <li>water pools, which flood dead-end corridors;</li>
+ * <li>colored doors on cells that cut off part of the map, each with a
+ * key of its color placed where it can be reached without it;</li>
+ * <li>clusters of chips.</li>
+ * </ol>
+ * The robot starts in the top-left corner. Water only ever fills dead
+ * ends, so it never cuts the map apart. Before a map is returned, a greedy
+ * walk from the start proves that it can be solved: the walk collects
+ * everything it can reach and opens any door it holds a key for, until
+ * every chip is collected and the goal door is reached. If the walk fails
+ * because keys were used on the wrong doors, the door colors are redrawn,
+ * and as a last resort doors are removed until it succeeds.
+ *
+ * Every step is linear in the number of cells, so a map of 10^6 cells takes
+ * about a second.
+ *
+ * Usage: MapGenerator rows cols out.txt|out.bin [--seed=N] [--rooms=N]
+ * [--braid=F] [--water=N] [--doors=N] [--chips=N]
+ */
+public class MapGenerator {
+  private static final TileStatus[] STATUSES = TileStatus.values();
+  private static final byte BLANK = (byte) TileStatus.BLANK.ordinal();
+  private static final byte WALL = (byte) TileStatus.WALL.ordinal();
+  private static final byte WATER = (byte) TileStatus.WATER.ordinal();
+  private static final byte CHIP = (byte) TileStatus.CHIP.ordinal();
+  private static final byte GOAL = (byte) TileStatus.GOAL.ordinal();
+  private static final byte DOOR_GOAL = (byte) TileStatus.DOOR_GOAL.ordinal();
+  private static final TileStatus[] DOORS = {
+      TileStatus.DOOR_BLUE, TileStatus.DOOR_GREEN, TileStatus.DOOR_RED, TileStatus.DOOR_YELLOW };
+  private static final TileStatus[] KEYS = {
+      TileStatus.KEY_BLUE, TileStatus.KEY_GREEN, TileStatus.KEY_RED, TileStatus.KEY_YELLOW };
+
+  private static final int[] ROW_STEP = { -1, 1, 0, 0 };
+  private static final int[] COL_STEP = { 0, 0, -1, 1 };
+  private static final int MAX_ROOM_HALF_SIZE = 4;
+  private static final int MAX_POOL = 6;
+  private static final int CLUSTER_SIZE = 6;
+  private static final int MIN_DOOR_REGION = 4;
+  private static final int COLOR_RETRIES = 16;
+
+  private final int rows;
+  private final int cols;
+  private final long seed;
+  private final int rooms;
+  private final double braid;
+  private final int waterPools;
+  private final int doors;
+  private final int chips;
+
+  /**
+   * Builds a generator with settings scaled to the map's area.
+   * @param rows - the number of rows, at least 5
+   * @param cols - the number of columns, at least 5
+   * @param seed - the seed of every random choice
+   */
+  public MapGenerator(int rows, int cols, long seed) {
+    this(rows, cols, seed, Math.max(1, rows * cols / 2000), 0.3,
+        rows * cols / 400, Math.min(8, 1 + rows * cols / 5000), Math.max(4, rows * cols / 1000));
+  }
+
+  private MapGenerator(int rows, int cols, long seed, int rooms, double braid,
+      int waterPools, int doors, int chips) {
+    if (rows < 5 || cols < 5)
+      throw new IllegalArgumentException("Map must be at least 5x5: " + rows + "x" + cols);
+    if ((long) rows * cols > Integer.MAX_VALUE)
+      throw new IllegalArgumentException("Map is too large: " + rows + "x" + cols);
+    this.rows = rows;
+    this.cols = cols;
+    this.seed = seed;
+    this.rooms = rooms;
+    this.braid = braid;
+    this.waterPools = waterPools;
+    this.doors = doors;
+    this.chips = chips;
+  }
+
+  /** @param rooms - the number of rooms to cut; @return a copy with that setting */
+  public MapGenerator withRooms(int rooms) {
+    return new MapGenerator(this.rows, this.cols, this.seed, rooms, this.braid,
+        this.waterPools, this.doors, this.chips);
+  }
+
+  /** @param braid - the chance, 0 to 1, of opening each dead end; @return a copy with that setting */
+  public MapGenerator withBraid(double braid) {
+    return new MapGenerator(this.rows, this.cols, this.seed, this.rooms, braid,
+        this.waterPools, this.doors, this.chips);
+  }
+
+  /** @param waterPools - the number of water pools to try to place; @return a copy with that setting */
+  public MapGenerator withWater(int waterPools) {
+    return new MapGenerator(this.rows, this.cols, this.seed, this.rooms, this.braid,
+        waterPools, this.doors, this.chips);
+  }
+
+  /** @param doors - the number of colored doors to try to place; @return a copy with that setting */
+  public MapGenerator withDoors(int doors) {
+    return new MapGenerator(this.rows, this.cols, this.seed, this.rooms, this.braid,
+        this.waterPools, doors, this.chips);
+  }
+
+  /** @param chips - the number of chips, at least 1; @return a copy with that setting */
+  public MapGenerator withChips(int chips) {
+    return new MapGenerator(this.rows, this.cols, this.seed, this.rooms, this.braid,
+        this.waterPools, this.doors, Math.max(1, chips));
+  }
+
+  /**
+   * Generates the map as a template, ready to build Environments from.
+   * @return the template
+   */
+  public MapTemplate generate() {
+    return new MapTemplate(this.rows, this.cols, new Builder().build());
+  }
+
+  /**
+   * Generates the map as the acronyms MapManager.loadMap returns. Every
+   * cell refers to a shared constant, so this costs one reference per cell.
+   * @return one acronym per cell
+   */
+  public String[][] generateGrid() {
+    byte[] codes = new Builder().build();
+    String[][] grid = new String[this.rows][this.cols];
+    for (int row = 0; row < this.rows; row++) {
+      for (int col = 0; col < this.cols; col++)
+        grid[row][col] = acronymOf(codes[row * this.cols + col]);
+    }
+    return grid;
+  }
+
+  /**
+   * Generates the map and writes it in the text format of maps/.
+   * @param out - receives the text
+   * @throws IOException if writing fails
+   */
+  public void writeText(Writer out) throws IOException {
+    byte[] codes = new Builder().build();
+    for (int row = 0; row < this.rows; row++) {
+      for (int col = 0; col < this.cols; col++) {
+        if (col > 0)
+          out.write(' ');
+        out.write(acronymOf(codes[row * this.cols + col]));
+      }
+      out.write('\n');
+    }
+  }
+
+  /**
+   * Returns the acronym of a MapTemplate code, the reverse of
+   * MapTemplate.codeOf.
+   * @param code - a TileStatus ordinal or MapTemplate.START
+   * @return the two-letter acronym
+   */
+  public static String acronymOf(byte code) {
+    if (code == MapTemplate.START)
+      return "ST";
+    switch (STATUSES[code]) {
+      case BLANK: return "BL";
+      case WALL: return "WL";
+      case GOAL: return "PL";
+      case DOOR_GOAL: return "DP";
+      case DOOR_GREEN: return "DG";
+      case DOOR_YELLOW: return "DY";
+      case DOOR_BLUE: return "DB";
+      case DOOR_RED: return "DR";
+      case KEY_GREEN: return "KG";
+      case KEY_YELLOW: return "KY";
+      case KEY_BLUE: return "KB";
+      case KEY_RED: return "KR";
+      case CHIP: return "CH";
+      case WATER: return "WA";
+      default: throw new IllegalArgumentException("Unknown tile code " + code);
+    }
+  }
+
+  /* The state of one generation; every array is indexed by cell id. */
+  private class Builder {
+    private final int cellCount = rows * cols;
+    private final byte[] codes = new byte[this.cellCount];
+    private final Random random = new Random(seed);
+    private final int start = cols + 1;
+    // The last cell of the maze's lattice, and the corridor into it
+    private final int latticeRows = (rows - 1) / 2;
+    private final int latticeCols = (cols - 1) / 2;
+    private final int goal = cellOf(this.latticeRows - 1, this.latticeCols - 1);
+    private final int vaultDoor = this.goal - 1;
+
+    private final int[] queue = new int[this.cellCount];
+    private final int[] mark = new int[this.cellCount];
+    private int markGeneration;
+
+    private int[] doorCells = new int[0];
+    private int[] keyCells = new int[0];
+
+    byte[] build() {
+      Arrays.fill(this.codes, WALL);
+      carveMaze();
+      cutRooms();
+      braid();
+      this.codes[this.goal] = GOAL;
+      this.codes[this.vaultDoor] = DOOR_GOAL;
+      floodDeadEnds();
+      placeDoorsAndKeys();
+      placeChips();
+      colorDoors();
+      this.codes[this.start] = MapTemplate.START;
+      return this.codes;
+    }
+
+    /* The cell of a lattice point; lattice points sit on odd rows and columns. */
+    private int cellOf(int latticeRow, int latticeCol) {
+      return (2 * latticeRow + 1) * cols + 2 * latticeCol + 1;
+    }
+
+    /* The neighbor of a cell in direction d, or NO_CELL off the map. */
+    private int step(int cell, int d, int distance) {
+      int row = cell / cols + ROW_STEP[d] * distance;
+      int col = cell % cols + COL_STEP[d] * distance;
+      if (row < 0 || row >= rows || col < 0 || col >= cols)
+        return Environment.NO_CELL;
+      return row * cols + col;
+    }
+
+    private boolean isOpen(int cell) {
+      return cell != Environment.NO_CELL && this.codes[cell] != WALL && this.codes[cell] != WATER;
+    }
+
+    private int openNeighbors(int cell) {
+      int count = 0;
+      for (int d = 0; d < 4; d++) {
+        if (isOpen(step(cell, d, 1)))
+          count++;
+      }
+      return count;
+    }
+
+    private boolean isReserved(int cell) {
+      return cell == this.start || cell == this.goal || cell == this.vaultDoor;
+    }
+
+    private int nextMark() {
+      return ++this.markGeneration;
+    }
+
+    /* Iterative depth-first maze over the lattice, leaving out the goal. */
+    private void carveMaze() {
+      int generation = nextMark();
+      this.mark[this.goal] = generation;
+      this.mark[this.start] = generation;
+      this.codes[this.start] = BLANK;
+      int top = 0;
+      this.queue[top++] = this.start;
+      int[] options = new int[4];
+      while (top > 0) {
+        int cell = this.queue[top - 1];
+        int count = 0;
+        for (int d = 0; d < 4; d++) {
+          int next = step(cell, d, 2);
+          if (next != Environment.NO_CELL && next / cols < rows - 1 && next % cols < cols - 1
+              && this.mark[next] != generation)
+            options[count++] = d;
+        }
+        if (count == 0) {
+          top--;
+          continue;
+        }
+        int d = options[this.random.nextInt(count)];
+        int next = step(cell, d, 2);
+        this.codes[step(cell, d, 1)] = BLANK;
+        this.codes[next] = BLANK;
+        this.mark[next] = generation;
+        this.queue[top++] = next;
+      }
+      // The goal hangs off its left neighbor, so it is a dead end
+      this.codes[this.vaultDoor] = BLANK;
+      this.codes[this.goal] = BLANK;
+    }
+
+    /* Clears rectangles of the lattice, away from the goal's corner. */
+    private void cutRooms() {
+      int maxRow = 2 * this.latticeRows - 1;
+      int maxCol = 2 * this.latticeCols - 1;
+      for (int i = 0; i < rooms; i++) {
+        int height = 2 * (1 + this.random.nextInt(MAX_ROOM_HALF_SIZE)) + 1;
+        int width = 2 * (1 + this.random.nextInt(MAX_ROOM_HALF_SIZE)) + 1;
+        int top = 1 + 2 * this.random.nextInt(this.latticeRows);
+        int left = 1 + 2 * this.random.nextInt(this.latticeCols);
+        int bottom = Math.min(maxRow, top + height - 1);
+        int right = Math.min(maxCol, left + width - 1);
+        if (bottom >= maxRow - 2 && right >= maxCol - 2)
+          continue;
+        for (int row = top; row <= bottom; row++) {
+          for (int col = left; col <= right; col++)
+            this.codes[row * cols + col] = BLANK;
+        }
+      }
+    }
+
+    /* Opens a wall out of some dead ends, never into the goal. */
+    private void braid() {
+      int[] options = new int[4];
+      for (int lr = 0; lr < this.latticeRows; lr++) {
+        for (int lc = 0; lc < this.latticeCols; lc++) {
+          int cell = cellOf(lr, lc);
+          if (cell == this.goal || openNeighbors(cell) != 1 || this.random.nextDouble() >= braid)
+            continue;
+          int count = 0;
+          for (int d = 0; d < 4; d++) {
+            int wall = step(cell, d, 1);
+            int next = step(cell, d, 2);
+            if (next != Environment.NO_CELL && next / cols < rows - 1 && next % cols < cols - 1
+                && this.codes[wall] == WALL && next != this.goal)
+              options[count++] = d;
+          }
+          if (count > 0)
+            this.codes[step(cell, options[this.random.nextInt(count)], 1)] = BLANK;
+        }
+      }
+    }
+
+    /* Turns dead-end corridors into water, which never disconnects the map. */
+    private void floodDeadEnds() {
+      for (int pool = 0, tries = 0; pool < waterPools && tries < waterPools * 8; tries++) {
+        int cell = cellOf(this.random.nextInt(this.latticeRows), this.random.nextInt(this.latticeCols));
+        if (isReserved(cell) || this.codes[cell] != BLANK || openNeighbors(cell) != 1)
+          continue;
+        for (int size = 0; size < MAX_POOL; size++) {
+          this.codes[cell] = WATER;
+          int next = Environment.NO_CELL;
+          for (int d = 0; d < 4 && next == Environment.NO_CELL; d++) {
+            if (isOpen(step(cell, d, 1)))
+              next = step(cell, d, 1);
+          }
+          if (next == Environment.NO_CELL || isReserved(next) || this.codes[next] != BLANK
+              || openNeighbors(next) != 1)
+            break;
+          cell = next;
+        }
+        pool++;
+      }
+    }
+
+    /*
+     * Puts doors on cut vertices, found with an iterative Tarjan search,
+     * then gives door k a key reachable with doors k and later closed.
+     */
+    private void placeDoorsAndKeys() {
+      if (doors <= 0)
+        return;
+      int[] disc = new int[this.cellCount];
+      int[] low = new int[this.cellCount];
+      int[] parent = new int[this.cellCount];
+      int[] size = new int[this.cellCount];
+      int[] cut = new int[this.cellCount];
+      byte[] next = new byte[this.cellCount];
+      int time = 1;
+      int top = 0;
+      this.queue[top++] = this.start;
+      disc[this.start] = low[this.start] = time++;
+      parent[this.start] = Environment.NO_CELL;
+      while (top > 0) {
+        int cell = this.queue[top - 1];
+        if (next[cell] < 4) {
+          int neighbor = step(cell, next[cell]++, 1);
+          if (!isOpen(neighbor) || this.codes[neighbor] == DOOR_GOAL)
+            continue;
+          if (disc[neighbor] == 0) {
+            parent[neighbor] = cell;
+            disc[neighbor] = low[neighbor] = time++;
+            this.queue[top++] = neighbor;
+          } else if (neighbor != parent[cell]) {
+            low[cell] = Math.min(low[cell], disc[neighbor]);
+          }
+          continue;
+        }
+        top--;
+        size[cell]++;
+        int up = parent[cell];
+        if (up != Environment.NO_CELL) {
+          low[up] = Math.min(low[up], low[cell]);
+          size[up] += size[cell];
+          if (low[cell] >= disc[up])
+            cut[up] += size[cell];
+        }
+      }
+
+      int candidates = 0;
+      for (int cell = 0; cell < this.cellCount; cell++) {
+        if (cut[cell] >= MIN_DOOR_REGION && !isReserved(cell) && this.codes[cell] == BLANK)
+          this.queue[candidates++] = cell;
+      }
+      int count = Math.min(doors, candidates);
+      this.doorCells = new int[count];
+      for (int i = 0; i < count; i++) {
+        int pick = i + this.random.nextInt(candidates - i);
+        int swap = this.queue[pick];
+        this.queue[pick] = this.queue[i];
+        this.queue[i] = swap;
+        this.doorCells[i] = swap;
+      }
+      // Doors are WALL while keys are placed so that BFS stops at them;
+      // colorDoors() gives them their real codes
+      for (int door : this.doorCells)
+        this.codes[door] = WALL;
+
+      this.keyCells = new int[count];
+      for (int k = 0; k < count; k++) {
+        for (int i = 0; i < k; i++)
+          this.codes[this.doorCells[i]] = BLANK;
+        int reached = reach(this.start);
+        this.keyCells[k] = pickBlank(reached);
+        this.codes[this.keyCells[k]] = CHIP;
+        for (int i = 0; i < k; i++)
+          this.codes[this.doorCells[i]] = WALL;
+      }
+      for (int key : this.keyCells)
+        this.codes[key] = BLANK;
+    }
+
+    /* Breadth-first search over open cells; the reached cells fill the queue. */
+    private int reach(int from) {
+      int generation = nextMark();
+      this.mark[from] = generation;
+      this.queue[0] = from;
+      int head = 0;
+      int tail = 1;
+      while (head < tail) {
+        int cell = this.queue[head++];
+        for (int d = 0; d < 4; d++) {
+          int neighbor = step(cell, d, 1);
+          if (isOpen(neighbor) && this.codes[neighbor] != DOOR_GOAL && this.mark[neighbor] != generation) {
+            this.mark[neighbor] = generation;
+            this.queue[tail++] = neighbor;
+          }
+        }
+      }
+      return tail;
+    }
+
+    /* A random blank, unreserved cell among the first count in the queue. */
+    private int pickBlank(int count) {
+      for (int tries = 0; tries < 32; tries++) {
+        int cell = this.queue[this.random.nextInt(count)];
+        if (this.codes[cell] == BLANK && !isReserved(cell))
+          return cell;
+      }
+      for (int i = 0; i < count; i++) {
+        int cell = this.queue[i];
+        if (this.codes[cell] == BLANK && !isReserved(cell))
+          return cell;
+      }
+      // Only the start is free; the key shares it with the robot
+      return this.start;
+    }
+
+    private void placeChips() {
+      // Every open cell is connected once the doors open, so chips can go
+      // anywhere; doors are still WALL here, so clusters stop at them
+      int placed = 0;
+      int[] cluster = new int[CLUSTER_SIZE * 4 + 1];
+      for (int tries = 0; placed < chips && tries < chips * 64; tries++) {
+        int center = this.random.nextInt(this.cellCount);
+        if (this.codes[center] != BLANK || isReserved(center) || isKey(center))
+          continue;
+        int generation = nextMark();
+        this.mark[center] = generation;
+        cluster[0] = center;
+        int head = 0;
+        int tail = 1;
+        int inCluster = 0;
+        while (head < tail && inCluster < CLUSTER_SIZE && placed < chips) {
+          int cell = cluster[head++];
+          if (this.codes[cell] == BLANK && !isReserved(cell) && !isKey(cell)) {
+            this.codes[cell] = CHIP;
+            inCluster++;
+            placed++;
+          }
+          for (int d = 0; d < 4 && tail < cluster.length; d++) {
+            int neighbor = step(cell, d, 1);
+            if (neighbor != Environment.NO_CELL && this.codes[neighbor] == BLANK
+                && this.mark[neighbor] != generation) {
+              this.mark[neighbor] = generation;
+              cluster[tail++] = neighbor;
+            }
+          }
+        }
+      }
+      // The goal door needs something to open for
+      if (placed == 0)
+        this.codes[pickBlank(reach(this.start))] = CHIP;
+    }
+
+    private boolean isKey(int cell) {
+      for (int key : this.keyCells) {
+        if (key == cell)
+          return true;
+      }
+      return false;
+    }
+
+    /*
+     * Gives each door and its key a color, until the greedy walk solves
+     * the map. Up to four doors get distinct colors, which always works;
+     * past that colors are drawn at random, then doors dropped if need be.
+     */
+    private void colorDoors() {
+      int count = this.doorCells.length;
+      int[] colors = new int[count];
+      for (int attempt = 0; count > 0; attempt++) {
+        if (count <= DOORS.length) {
+          int[] order = { 0, 1, 2, 3 };
+          for (int i = 0; i < count; i++) {
+            int pick = i + this.random.nextInt(order.length - i);
+            int swap = order[pick];
+            order[pick] = order[i];
+            order[i] = swap;
+            colors[i] = order[i];
+          }
+        } else {
+          for (int i = 0; i < count; i++)
+            colors[i] = this.random.nextInt(DOORS.length);
+        }
+        for (int i = 0; i < count; i++) {
+          this.codes[this.doorCells[i]] = (byte) DOORS[colors[i]].ordinal();
+          this.codes[this.keyCells[i]] = this.keyCells[i] == this.start
+              ? this.codes[this.start] : (byte) KEYS[colors[i]].ordinal();
+        }
+        if (isSolvable())
+          return;
+        if (attempt >= COLOR_RETRIES) {
+          // Drop the last door and its key, then try again
+          count--;
+          this.codes[this.doorCells[count]] = BLANK;
+          if (this.keyCells[count] != this.start)
+            this.codes[this.keyCells[count]] = BLANK;
+          attempt = 0;
+        }
+      }
+      this.doorCells = Arrays.copyOf(this.doorCells, count);
+      this.keyCells = Arrays.copyOf(this.keyCells, count);
+    }
+
+    /*
+     * Walks from the start, collecting every reachable chip and key and
+     * opening every door it has a key for, until nothing more opens.
+     */
+    private boolean isSolvable() {
+      int generation = nextMark();
+      int[] keys = new int[KEYS.length];
+      int[] waiting = new int[this.doorCells.length];
+      int waitingCount = 0;
+      int chipsLeft = 0;
+      for (byte code : this.codes) {
+        if (code == CHIP)
+          chipsLeft++;
+      }
+      boolean goalDoorSeen = false;
+      this.mark[this.start] = generation;
+      this.queue[0] = this.start;
+      int head = 0;
+      int tail = 1;
+      while (true) {
+        while (head < tail) {
+          int cell = this.queue[head++];
+          TileStatus status = STATUSES[this.codes[cell]];
+          if (status == TileStatus.CHIP)
+            chipsLeft--;
+          for (int k = 0; k < KEYS.length; k++) {
+            if (status == KEYS[k])
+              keys[k]++;
+          }
+          for (int d = 0; d < 4; d++) {
+            int neighbor = step(cell, d, 1);
+            if (!isOpen(neighbor) || this.mark[neighbor] == generation)
+              continue;
+            this.mark[neighbor] = generation;
+            if (this.codes[neighbor] == DOOR_GOAL) {
+              goalDoorSeen = true;
+            } else if (doorColor(neighbor) >= 0) {
+              waiting[waitingCount++] = neighbor;
+            } else {
+              this.queue[tail++] = neighbor;
+            }
+          }
+        }
+        boolean opened = false;
+        for (int i = 0; i < waitingCount; i++) {
+          int color = doorColor(waiting[i]);
+          if (keys[color] > 0) {
+            keys[color]--;
+            this.queue[tail++] = waiting[i];
+            waiting[i--] = waiting[--waitingCount];
+            opened = true;
+          }
+        }
+        if (!opened)
+          return chipsLeft == 0 && goalDoorSeen;
+      }
+    }
+
+    private int doorColor(int cell) {
+      for (int k = 0; k < DOORS.length; k++) {
+        if (this.codes[cell] == DOORS[k].ordinal())
+          return k;
+      }
+      return -1;
+    }
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 3) {
+      System.out.println("Usage: MapGenerator rows cols out.txt|out.bin [--seed=N] [--rooms=N]"
+          + " [--braid=F] [--water=N] [--doors=N] [--chips=N]");
+      return;
+    }
+    int rows = Integer.parseInt(args[0]);
+    int cols = Integer.parseInt(args[1]);
+    long seed = System.nanoTime();
+    for (int i = 3; i < args.length; i++) {
+      if (args[i].startsWith("--seed="))
+        seed = Long.parseLong(args[i].substring("--seed=".length()));
+    }
+    MapGenerator generator = new MapGenerator(rows, cols, seed);
+    for (int i = 3; i < args.length; i++) {
+      String value = args[i].substring(args[i].indexOf('=') + 1);
+      if (args[i].startsWith("--rooms="))
+        generator = generator.withRooms(Integer.parseInt(value));
+      else if (args[i].startsWith("--braid="))
+        generator = generator.withBraid(Double.parseDouble(value));
+      else if (args[i].startsWith("--water="))
+        generator = generator.withWater(Integer.parseInt(value));
+      else if (args[i].startsWith("--doors="))
+        generator = generator.withDoors(Integer.parseInt(value));
+      else if (args[i].startsWith("--chips="))
+        generator = generator.withChips(Integer.parseInt(value));
+    }
+
+    Path out = Paths.get(args[2]);
+    long start = System.nanoTime();
+    if (BinaryMapFormat.isBinary(out.toString())) {
+      BinaryMapFormat.write(generator.generate(), out, true);
+    } else {
+      try (BufferedWriter writer = Files.newBufferedWriter(out, StandardCharsets.US_ASCII)) {
+        generator.writeText(writer);
+      }
+    }
+    System.out.printf("Wrote %dx%d map to %s in %dms (seed %d)%n",
+        rows, cols, out, (System.nanoTime() - start) / 1_000_000, seed);
+  }
+}
@@ -2,8 +2,14 @@ package edu.ncsu.csc411.ps06.utils;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Scanner;
+import java.util.concurrent.ConcurrentHashMap;
+
+import edu.ncsu.csc411.ps06.environment.MapTemplate;
 
 /**
  * Reads the files from map/ and converts them into a nested array
@@ -11,6 +17,42 @@ import java.util.Scanner;
  * DO NOT MODIFY.
  */
 public class MapManager {
+  // Parsed maps by filename; a template is immutable, so one copy is shared
+  private static final ConcurrentHashMap<String, MapTemplate> TEMPLATES = new ConcurrentHashMap<>();
+
+  /**
+   * Returns the parsed template of a map file, parsing it only the first
+   * time it is requested. Build an Environment from the template for each
+   * trial instead of calling loadMap again. Changes made to the file after
+   * it was first loaded are not seen until clearTemplates() is called.
+   * Files ending in .bin are read as binary maps, see BinaryMapFormat;
+   * other files are streamed by TextMapFormat rather than split into
+   * Strings by loadMap.
+   * @param filename - a text or binary file from map/
+   * @return the shared template for that file
+   * @throws UncheckedIOException if the file cannot be read
+   */
+  public static MapTemplate loadTemplate(String filename) {
+    return TEMPLATES.computeIfAbsent(filename, name -> {
+      try {
+        if (BinaryMapFormat.isBinary(name))
+          return BinaryMapFormat.read(Paths.get(name));
+        return TextMapFormat.read(Paths.get(name));
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+  }
+
+  /**
+   * Forgets every template loadTemplate has parsed, so the memory of maps
+   * no longer run can be reclaimed and edited files are read again.
+   * Environments already built from a template keep it.
+   */
+  public static void clearTemplates() {
+    TEMPLATES.clear();
+  }
+
   /**
    * Reads in a text file and loads each line as an ArrayList.
    * Once finished, converts the ArrayList into a String array.
@@ -0,0 +1,124 @@
+package edu.ncsu.csc411.ps06.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import edu.ncsu.csc411.ps06.environment.MapTemplate;
+
+/**
+ * Parses the space-separated acronym maps in map/ into a MapTemplate,
+ * streaming the file from a FileChannel without making a String per cell.
+ * Throws IllegalArgumentException for an empty map, a ragged row or an
+ * unknown acronym.
+ */
+public class TextMapFormat {
+  private static final int BUFFER_BYTES = 1 << 16;
+  private static final int INITIAL_CELLS = 1 << 12;
+
+  /**
+   * Parses a text map file.
+   * @param path - the file to read
+   * @return the parsed template
+   * @throws IOException if the file cannot be read
+   * @throws IllegalArgumentException for an unknown acronym, an empty map
+   *     or rows of different widths
+   */
+  public static MapTemplate read(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+      Parser parser = new Parser();
+      while (channel.read(buffer) >= 0) {
+        buffer.flip();
+        while (buffer.hasRemaining())
+          parser.accept(buffer.get());
+        buffer.clear();
+      }
+      return parser.finish();
+    }
+  }
+
+  /* A byte-at-a-time state machine over the text of a map. */
+  private static class Parser {
+    private byte[] codes = new byte[INITIAL_CELLS];
+    private int rows;
+    private int cols = -1;
+    private int col;
+
+    // The acronym being read; only its first two characters are kept
+    private char first;
+    private char second;
+    private int length;
+
+    void accept(byte b) {
+      switch (b) {
+        case '\n':
+          endToken();
+          endLine();
+          break;
+        case ' ': case '\t': case '\r':
+          endToken();
+          break;
+        default:
+          if (this.length == 0)
+            this.first = (char) (b & 0xFF);
+          else if (this.length == 1)
+            this.second = (char) (b & 0xFF);
+          this.length++;
+      }
+    }
+
+    MapTemplate finish() {
+      endToken();
+      endLine();
+      if (this.rows == 0)
+        throw new IllegalArgumentException("Map has no cells");
+      return new MapTemplate(this.rows, this.cols, Arrays.copyOf(this.codes, this.rows * this.cols));
+    }
+
+    private void endToken() {
+      if (this.length == 0)
+        return;
+      byte code = this.length == 2 ? MapTemplate.codeOf(this.first, this.second) : -1;
+      if (code < 0)
+        throw new IllegalArgumentException("Tile Not Found - " + token());
+      this.length = 0;
+
+      // Until the first row ends its width is unknown, but its cells are
+      // still at index col
+      if (this.cols < 0) {
+        ensureCapacity(this.col + 1);
+        this.codes[this.col] = code;
+      } else if (this.col < this.cols) {
+        this.codes[this.rows * this.cols + this.col] = code;
+      }
+      this.col++;
+    }
+
+    private void endLine() {
+      if (this.col == 0)
+        return;
+      if (this.cols < 0)
+        this.cols = this.col;
+      else if (this.col != this.cols)
+        throw new IllegalArgumentException(
+            "Row " + this.rows + " has " + this.col + " cells, expected " + this.cols);
+      this.rows++;
+      this.col = 0;
+      ensureCapacity((this.rows + 1) * this.cols);
+    }
+
+    private void ensureCapacity(int cells) {
+      if (cells > this.codes.length)
+        this.codes = Arrays.copyOf(this.codes, Math.max(cells, this.codes.length * 2));
+    }
+
+    private String token() {
+      return this.length == 1 ? String.valueOf(this.first)
+          : "" + this.first + this.second + (this.length > 2 ? "..." : "");
+    }
+  }
+}
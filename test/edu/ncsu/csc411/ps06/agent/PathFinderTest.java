@@ -0,0 +1,87 @@
+package edu.ncsu.csc411.ps06.agent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import edu.ncsu.csc411.ps06.environment.Action;
+import edu.ncsu.csc411.ps06.environment.Direction;
+import edu.ncsu.csc411.ps06.environment.Environment;
+import edu.ncsu.csc411.ps06.utils.MapGenerator;
+
+/**
+ * Checks PathFinder's A* paths against the breadth-first distances of
+ * DistanceFields on a generated maze: both must agree on the length of
+ * every shortest path, and every path must walk from start to goal over
+ * open cells only.
+ */
+public class PathFinderTest {
+	private final Environment env = new Environment(new MapGenerator(60, 80, 5).withDoors(6).generate());
+	private final PathFinder.Passability open = cell -> DistanceFields.isOpen(env.getTileStatus(cell));
+
+	@Test
+	public void testPathsAreShortest() {
+		PathFinder pathFinder = new PathFinder(env);
+		DistanceFields fields = new DistanceFields(env);
+		Random random = new Random(1);
+		List<Action> path = new ArrayList<>();
+		int found = 0;
+		for (int pair = 0; pair < 200; pair++) {
+			int start = randomOpenCell(random);
+			int goal = randomOpenCell(random);
+			int distance = fields.distance(start, goal);
+			path.clear();
+			if (distance >= DistanceFields.UNREACHABLE) {
+				assertFalse(pathFinder.findPath(start, goal, open, path), "path through a closed door");
+				continue;
+			}
+			assertTrue(pathFinder.findPath(start, goal, open, path), "no path " + start + " -> " + goal);
+			assertEquals(distance, path.size(), "length of " + start + " -> " + goal);
+			assertEquals(goal, walk(start, path));
+			found++;
+		}
+		assertTrue(found > 100, "only " + found + " pairs were connected");
+	}
+
+	@Test
+	public void testDescendFollowsTheField() {
+		DistanceFields fields = new DistanceFields(env);
+		Random random = new Random(2);
+		List<Action> path = new ArrayList<>();
+		for (int pair = 0; pair < 50; pair++) {
+			int start = randomOpenCell(random);
+			int goal = randomOpenCell(random);
+			int distance = fields.distance(goal, start);
+			boolean reachable = fields.descend(start, goal, path);
+			assertEquals(distance < DistanceFields.UNREACHABLE, reachable);
+			if (reachable) {
+				assertEquals(distance, path.size());
+				assertEquals(goal, walk(start, path));
+			}
+		}
+	}
+
+	private int randomOpenCell(Random random) {
+		while (true) {
+			int cell = random.nextInt(env.getCellCount());
+			if (open.isPassable(cell))
+				return cell;
+		}
+	}
+
+	/* Follows the moves from start, checking each step, and returns the last cell. */
+	private int walk(int start, List<Action> path) {
+		int cell = start;
+		for (Action action : path) {
+			cell = env.getAdjacency()[cell][Direction.of(action).ordinal()];
+			assertTrue(cell != Environment.NO_CELL && open.isPassable(cell), "walked off the open cells");
+		}
+		return cell;
+	}
+}
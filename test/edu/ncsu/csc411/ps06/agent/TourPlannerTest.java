@@ -0,0 +1,176 @@
+package edu.ncsu.csc411.ps06.agent;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import edu.ncsu.csc411.ps06.environment.Environment;
+
+/**
+ * Checks TourPlanner's orders against brute force on an open room, that
+ * targets it cannot reach or does not tour are still returned, and that
+ * a field cache smaller than the tour is neither thrashed nor misread.
+ */
+public class TourPlannerTest {
+	private static final int SIZE = 12;
+
+	@Test
+	public void testSmallSetsAreOrderedOptimally() {
+		Environment env = room();
+		DistanceFields fields = new DistanceFields(env);
+		TourPlanner planner = new TourPlanner(fields, cell -> false);
+		int start = env.getCellId(1, 1);
+		int end = env.getCellId(10, 10);
+		int[] targets = { env.getCellId(9, 2), env.getCellId(2, 9), env.getCellId(5, 5),
+				env.getCellId(1, 10), env.getCellId(10, 1), env.getCellId(7, 8), env.getCellId(3, 4) };
+
+		int[] order = planner.order(start, targets, end);
+		assertEquals(bestCost(fields, start, targets, end), cost(fields, start, order, end));
+		assertArrayEquals(sorted(targets), sorted(order));
+	}
+
+	@Test
+	public void testLargeSetsKeepEveryTarget() {
+		Environment env = room();
+		TourPlanner planner = new TourPlanner(new DistanceFields(env), cell -> false);
+		int[] targets = new int[60];
+		for (int i = 0; i < targets.length; i++) {
+			targets[i] = env.getCellId(1 + i / 10, 1 + i % 10);
+		}
+		int[] order = planner.order(env.getCellId(10, 10), targets, Environment.NO_CELL);
+		assertArrayEquals(sorted(targets), sorted(order));
+	}
+
+	@Test
+	public void testUnreachableTargetsComeLast() {
+		String[][] map = grid();
+		// Wall in the bottom-right corner cell
+		map[9][10] = "WL";
+		map[10][9] = "WL";
+		Environment env = new Environment(map);
+		TourPlanner planner = new TourPlanner(new DistanceFields(env), cell -> false);
+		int walledIn = env.getCellId(10, 10);
+		int[] targets = { walledIn, env.getCellId(5, 5), env.getCellId(2, 2) };
+
+		int[] order = planner.order(env.getCellId(1, 1), targets, Environment.NO_CELL);
+		assertEquals(walledIn, order[2]);
+	}
+
+	@Test
+	public void testSmallCacheIsNotThrashed() {
+		Environment env = room();
+		DistanceFields fields = new DistanceFields(env, 4);
+		TourPlanner planner = new TourPlanner(fields, cell -> false);
+		int start = env.getCellId(1, 1);
+		int[] targets = { env.getCellId(9, 2), env.getCellId(2, 9), env.getCellId(5, 5),
+				env.getCellId(1, 10), env.getCellId(10, 1), env.getCellId(7, 8), env.getCellId(3, 4) };
+
+		int[] order = planner.order(start, targets, Environment.NO_CELL);
+		// The start and the three toured targets, one field each
+		assertTrue(fields.getBuildCount() <= 4, fields.getBuildCount() + " fields built");
+		assertToursNearestOptimally(new DistanceFields(env), start, targets, order, 3);
+
+		int builds = fields.getBuildCount();
+		assertArrayEquals(order, planner.order(start, targets, Environment.NO_CELL));
+		assertEquals(builds, fields.getBuildCount());
+	}
+
+	@Test
+	public void testSmallCacheReadsDoorsOnce() {
+		// A wall down the middle of the room with one door in it
+		String[][] map = grid();
+		for (int row = 1; row < SIZE - 1; row++) {
+			map[row][6] = "WL";
+		}
+		map[8][6] = "DB";
+		Environment env = new Environment(map);
+		DistanceFields fields = new DistanceFields(env, 4);
+		TourPlanner planner = new TourPlanner(fields, cell -> true);
+		int start = env.getCellId(1, 1);
+		int[] targets = { env.getCellId(2, 9), env.getCellId(10, 10), env.getCellId(5, 4),
+				env.getCellId(1, 8), env.getCellId(10, 2), env.getCellId(4, 10), env.getCellId(6, 7) };
+
+		int[] order = planner.order(start, targets, Environment.NO_CELL);
+		// The start, the door and the three toured targets
+		assertTrue(fields.getBuildCount() <= 5, fields.getBuildCount() + " fields built");
+
+		// Through the door costs what walking through it open would
+		map[8][6] = "BL";
+		assertToursNearestOptimally(new DistanceFields(new Environment(map)), start, targets, order, 3);
+	}
+
+	/* The toured targets at the front of order are the nearest, in their best order. */
+	private static void assertToursNearestOptimally(DistanceFields truth, int start, int[] targets,
+			int[] order, int toured) {
+		assertArrayEquals(sorted(targets), sorted(order));
+		int farthestToured = 0;
+		for (int i = 0; i < toured; i++) {
+			farthestToured = Math.max(farthestToured, truth.distance(start, order[i]));
+		}
+		for (int i = toured; i < order.length; i++) {
+			assertTrue(truth.distance(start, order[i]) >= farthestToured, "target " + i + " is nearer than a toured one");
+		}
+		int[] tour = Arrays.copyOf(order, toured);
+		assertEquals(bestCost(truth, start, tour, Environment.NO_CELL), cost(truth, start, tour, Environment.NO_CELL));
+	}
+
+	private static Environment room() {
+		return new Environment(grid());
+	}
+
+	/* An open SIZE x SIZE room inside a wall. */
+	private static String[][] grid() {
+		String[][] map = new String[SIZE][SIZE];
+		for (int row = 0; row < SIZE; row++) {
+			for (int col = 0; col < SIZE; col++) {
+				boolean edge = row == 0 || col == 0 || row == SIZE - 1 || col == SIZE - 1;
+				map[row][col] = edge ? "WL" : "BL";
+			}
+		}
+		return map;
+	}
+
+	private static int cost(DistanceFields fields, int start, int[] order, int end) {
+		int total = 0;
+		int at = start;
+		for (int target : order) {
+			total += fields.distance(at, target);
+			at = target;
+		}
+		return end == Environment.NO_CELL ? total : total + fields.distance(at, end);
+	}
+
+	/* The cheapest cost over every permutation of the targets. */
+	private static int bestCost(DistanceFields fields, int start, int[] targets, int end) {
+		int[] order = targets.clone();
+		return permute(fields, start, order, 0, end);
+	}
+
+	private static int permute(DistanceFields fields, int start, int[] order, int fixed, int end) {
+		if (fixed == order.length)
+			return cost(fields, start, order, end);
+		int best = Integer.MAX_VALUE;
+		for (int i = fixed; i < order.length; i++) {
+			swap(order, fixed, i);
+			best = Math.min(best, permute(fields, start, order, fixed + 1, end));
+			swap(order, fixed, i);
+		}
+		return best;
+	}
+
+	private static void swap(int[] array, int i, int j) {
+		int swap = array[i];
+		array[i] = array[j];
+		array[j] = swap;
+	}
+
+	private static int[] sorted(int[] array) {
+		int[] copy = array.clone();
+		Arrays.sort(copy);
+		return copy;
+	}
+}
@@ -0,0 +1,32 @@
+package edu.ncsu.csc411.ps06.environment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Checks that Positions hash apart on large maps, so maps keyed by
+ * Position keep constant-time lookups.
+ */
+public class PositionTest {
+	@Test
+	public void testEveryCellOfALargeMapHashesApart() {
+		Environment env = new Environment(1000, 1000);
+		Set<Integer> hashes = new HashSet<>();
+		for (int cell = 0; cell < env.getCellCount(); cell++) {
+			hashes.add(env.getPosition(cell).hashCode());
+		}
+		assertEquals(env.getCellCount(), hashes.size());
+	}
+
+	@Test
+	public void testEqualPositionsHashTheSame() {
+		Environment env = new Environment(40, 40);
+		Position position = env.getPosition(env.getCellId(37, 3));
+		assertEquals(position, new Position(37, 3));
+		assertEquals(position.hashCode(), new Position(37, 3).hashCode());
+	}
+}
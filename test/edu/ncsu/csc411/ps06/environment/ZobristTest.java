@@ -0,0 +1,67 @@
+package edu.ncsu.csc411.ps06.environment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import edu.ncsu.csc411.ps06.agent.Robot;
+import edu.ncsu.csc411.ps06.utils.MapManager;
+
+/**
+ * Checks that the state hash Environment updates incrementally always
+ * equals the hash recomputed from scratch over every tile, robot and key.
+ */
+public class ZobristTest {
+	private static final int STEPS = 300;
+
+	@Test
+	public void testIncrementalHashMatchesRecomputation() {
+		for (int map = 1; map <= 10; map++) {
+			Environment env = new Environment(MapManager.loadTemplate(String.format("maps/public/map%02d.txt", map)));
+			assertEquals(recompute(env), env.getStateHash(), "map " + map + " at the start");
+			for (int step = 1; step <= STEPS && !env.goalConditionMet(); step++) {
+				env.updateEnvironment();
+				assertEquals(recompute(env), env.getStateHash(), "map " + map + " after step " + step);
+			}
+		}
+	}
+
+	@Test
+	public void testResetRestoresTheStartingHash() {
+		Environment env = new Environment(MapManager.loadTemplate("maps/public/map04.txt"));
+		long start = env.getStateHash();
+		for (int step = 0; step < 50; step++) {
+			env.updateEnvironment();
+		}
+		assertNotEquals(start, env.getStateHash());
+		env.reset();
+		assertEquals(start, env.getStateHash());
+		assertEquals(recompute(env), env.getStateHash());
+	}
+
+	@Test
+	public void testSameStateHashesTheSame() {
+		MapTemplate template = MapManager.loadTemplate("maps/public/map07.txt");
+		assertEquals(new Environment(template).getStateHash(), new Environment(template).getStateHash());
+	}
+
+	/* The XOR of the key of every part of the state, as Zobrist describes it. */
+	private static long recompute(Environment env) {
+		long hash = 0;
+		for (int cell = 0; cell < env.getCellCount(); cell++) {
+			hash ^= Zobrist.tile(cell, env.getTileStatus(cell));
+		}
+		List<Robot> robots = env.getRobots();
+		for (int i = 0; i < robots.size(); i++) {
+			hash ^= Zobrist.robot(i, env.getCellId(env.getRobotPosition(robots.get(i))));
+			Inventory inventory = env.getRobotInventory(robots.get(i));
+			for (int slot = 0; slot < Inventory.KEYS.length; slot++) {
+				hash ^= Zobrist.keys(i, slot, inventory.getCount(Inventory.KEYS[slot]));
+			}
+		}
+		return hash;
+	}
+}
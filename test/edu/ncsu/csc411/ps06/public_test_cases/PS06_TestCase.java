@@ -2,15 +2,15 @@ package edu.ncsu.csc411.ps06.public_test_cases;
 
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
-import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
+import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.Test;
 
 import edu.ncsu.csc411.ps06.simulation.RunSimulation;
+import edu.ncsu.csc411.ps06.simulation.TrialExecutor;
 
 /**
  * This JUnit test suite uses JUnit5. In order to run these 
@@ -26,6 +26,7 @@ public class PS06_TestCase {
 	private final int ITERATIONS = 1000; // Number of iterations ("moves") per trial
 	private final double PASS_THRESHOLD = 0.7; // Pass a map 70% of the time
 	private int TIMEOUT = 2000; // Test Case will fail after 2 seconds
+	private static final TrialExecutor EXECUTOR = new TrialExecutor(); // Runs and cancels the trials
 	private int successfulTrials = 0;
 	private boolean DEBUG = false;
 	private String line = "Test %02d success rate: %.2f after %d trials";
@@ -36,6 +37,15 @@ public class PS06_TestCase {
 		successfulTrials = 0;
 	}
 
+	/**
+	 * Prints where the time went across every trial EXECUTOR has run:
+	 * time step and decision latencies, and the robots' planning counts.
+	 */
+	@AfterClass
+	public static void printMetrics() {
+		System.out.println(EXECUTOR.getMetrics());
+	}
+
 	/**
 	 * Each test case runs exactly one (1) map NUM_TRIALS times. If the agent
 	 * is successful (goalConditionMet), then successfulTrials is incremented
@@ -49,12 +59,12 @@ public class PS06_TestCase {
 		for (int trial = 0; trial < NUM_TRIALS; trial++) {
 			RunSimulation sim = new RunSimulation(map, ITERATIONS, false);
 			try {
-				// CompletableFuture will run an iteration's simulation
+				// TrialExecutor will run an iteration's simulation
 				// asynchronously for 2000 milliseconds (2 seconds) before timing out.
 				// This is to prevent infinite loops or inefficient implementations
-				// like brute forcing the solution.
-				Runnable simulation = () -> sim.run();
-				CompletableFuture.runAsync(simulation).get(TIMEOUT, TimeUnit.MILLISECONDS);
+				// like brute forcing the solution. A timed-out simulation is
+				// cancelled, so it stops instead of running on in the background.
+				EXECUTOR.run(sim, TIMEOUT);
 				if(sim.goalConditionMet()) {
 					successfulTrials++;
 				}
@@ -83,8 +93,7 @@ public class PS06_TestCase {
 		for (int trial = 0; trial < NUM_TRIALS; trial++) {
 			RunSimulation sim = new RunSimulation(map, ITERATIONS, false);
 			try {
-				Runnable simulation = () -> sim.run();
-				CompletableFuture.runAsync(simulation).get(TIMEOUT, TimeUnit.MILLISECONDS);
+				EXECUTOR.run(sim, TIMEOUT);
 				if(sim.goalConditionMet()) {
 					successfulTrials++;
 				}
@@ -112,8 +121,7 @@ public class PS06_TestCase {
 		for (int trial = 0; trial < NUM_TRIALS; trial++) {
 			RunSimulation sim = new RunSimulation(map, ITERATIONS, false);
 			try {
-				Runnable simulation = () -> sim.run();
-				CompletableFuture.runAsync(simulation).get(TIMEOUT, TimeUnit.MILLISECONDS);
+				EXECUTOR.run(sim, TIMEOUT);
 				if(sim.goalConditionMet()) {
 					successfulTrials++;
 				}
@@ -141,8 +149,7 @@ public class PS06_TestCase {
 		for (int trial = 0; trial < NUM_TRIALS; trial++) {
 			RunSimulation sim = new RunSimulation(map, ITERATIONS, false);
 			try {
-				Runnable simulation = () -> sim.run();
-				CompletableFuture.runAsync(simulation).get(TIMEOUT, TimeUnit.MILLISECONDS);
+				EXECUTOR.run(sim, TIMEOUT);
 				if(sim.goalConditionMet()) {
 					successfulTrials++;
 				}
@@ -170,8 +177,7 @@ public class PS06_TestCase {
 		for (int trial = 0; trial < NUM_TRIALS; trial++) {
 			RunSimulation sim = new RunSimulation(map, ITERATIONS, false);
 			try {
-				Runnable simulation = () -> sim.run();
-				CompletableFuture.runAsync(simulation).get(TIMEOUT, TimeUnit.MILLISECONDS);
+				EXECUTOR.run(sim, TIMEOUT);
 				if(sim.goalConditionMet()) {
 					successfulTrials++;
 				}
@@ -199,8 +205,7 @@ public class PS06_TestCase {
 		for (int trial = 0; trial < NUM_TRIALS; trial++) {
 			RunSimulation sim = new RunSimulation(map, ITERATIONS, false);
 			try {
-				Runnable simulation = () -> sim.run();
-				CompletableFuture.runAsync(simulation).get(TIMEOUT, TimeUnit.MILLISECONDS);
+				EXECUTOR.run(sim, TIMEOUT);
 				if(sim.goalConditionMet()) {
 					successfulTrials++;
 				}
@@ -228,8 +233,7 @@ public class PS06_TestCase {
 		for (int trial = 0; trial < NUM_TRIALS; trial++) {
 			RunSimulation sim = new RunSimulation(map, ITERATIONS, false);
 			try {
-				Runnable simulation = () -> sim.run();
-				CompletableFuture.runAsync(simulation).get(TIMEOUT, TimeUnit.MILLISECONDS);
+				EXECUTOR.run(sim, TIMEOUT);
 				if(sim.goalConditionMet()) {
 					successfulTrials++;
 				}
@@ -257,8 +261,7 @@ public class PS06_TestCase {
 		for (int trial = 0; trial < NUM_TRIALS; trial++) {
 			RunSimulation sim = new RunSimulation(map, ITERATIONS, false);
 			try {
-				Runnable simulation = () -> sim.run();
-				CompletableFuture.runAsync(simulation).get(TIMEOUT, TimeUnit.MILLISECONDS);
+				EXECUTOR.run(sim, TIMEOUT);
 				if(sim.goalConditionMet()) {
 					successfulTrials++;
 				}
@@ -286,8 +289,7 @@ public class PS06_TestCase {
 		for (int trial = 0; trial < NUM_TRIALS; trial++) {
 			RunSimulation sim = new RunSimulation(map, ITERATIONS, false);
 			try {
-				Runnable simulation = () -> sim.run();
-				CompletableFuture.runAsync(simulation).get(TIMEOUT, TimeUnit.MILLISECONDS);
+				EXECUTOR.run(sim, TIMEOUT);
 				if(sim.goalConditionMet()) {
 					successfulTrials++;
 				}
@@ -315,8 +317,7 @@ public class PS06_TestCase {
 		for (int trial = 0; trial < NUM_TRIALS; trial++) {
 			RunSimulation sim = new RunSimulation(map, ITERATIONS, false);
 			try {
-				Runnable simulation = () -> sim.run();
-				CompletableFuture.runAsync(simulation).get(TIMEOUT, TimeUnit.MILLISECONDS);
+				EXECUTOR.run(sim, TIMEOUT);
 				if(sim.goalConditionMet()) {
 					successfulTrials++;
 				}
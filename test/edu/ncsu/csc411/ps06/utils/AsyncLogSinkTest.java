@@ -0,0 +1,51 @@
+package edu.ncsu.csc411.ps06.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import org.junit.Test;
+
+/**
+ * Checks that AsyncLogSink prints every message in order once flushed,
+ * and drops and counts messages rather than block when its buffer is full.
+ */
+public class AsyncLogSinkTest {
+	@Test
+	public void testFlushPrintsEverythingInOrder() {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		AsyncLogSink sink = new AsyncLogSink(new PrintStream(bytes, true));
+		for (int i = 0; i < 1000; i++) {
+			sink.write(LogLevel.DEBUG, "message " + i);
+		}
+		sink.flush();
+
+		String[] lines = bytes.toString().split(System.lineSeparator());
+		assertEquals(1000, lines.length);
+		for (int i = 0; i < lines.length; i++) {
+			assertEquals("message " + i, lines[i]);
+		}
+	}
+
+	@Test
+	public void testFullBufferDropsMessages() throws InterruptedException {
+		// Hold the stream's lock so the writer cannot print anything yet
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		PrintStream out = new PrintStream(bytes, true);
+		AsyncLogSink sink = new AsyncLogSink(out, 4);
+		synchronized (out) {
+			for (int i = 0; i < 100; i++) {
+				sink.write(LogLevel.DEBUG, "message " + i);
+			}
+		}
+		sink.flush();
+
+		String text = bytes.toString();
+		assertTrue(text.startsWith("message 0" + System.lineSeparator()), text);
+		assertTrue(text.contains("dropped"), "the dropped messages were not reported: " + text);
+		int printed = text.split("message ").length - 1;
+		assertTrue(printed >= 4 && printed < 100, printed + " messages printed");
+	}
+}
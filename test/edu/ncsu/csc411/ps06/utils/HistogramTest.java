@@ -0,0 +1,76 @@
+package edu.ncsu.csc411.ps06.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Checks the percentiles Histogram reports: exact for small values, and
+ * within the promised 1.6% of the true value for large ones.
+ */
+public class HistogramTest {
+	@Test
+	public void testSmallValuesAreExact() {
+		Histogram histogram = new Histogram();
+		for (long value = 1; value <= 100; value++) {
+			histogram.record(value);
+		}
+		assertEquals(100, histogram.getCount());
+		assertEquals(1, histogram.getMin());
+		assertEquals(100, histogram.getMax());
+		assertEquals(50.5, histogram.getMean(), 1e-9);
+		assertEquals(50, histogram.getValueAtPercentile(50));
+		assertEquals(90, histogram.getValueAtPercentile(90));
+		assertEquals(99, histogram.getValueAtPercentile(99));
+		assertEquals(100, histogram.getValueAtPercentile(100));
+		assertEquals(1, histogram.getValueAtPercentile(0));
+	}
+
+	@Test
+	public void testLargeValuesAreWithinBucketError() {
+		Histogram histogram = new Histogram();
+		for (long value = 1000; value <= 1_000_000; value += 1000) {
+			histogram.record(value);
+		}
+		for (double percentile : new double[] { 10, 50, 90, 99, 99.9 }) {
+			long exact = (long) Math.ceil(percentile / 100 * 1000) * 1000;
+			long reported = histogram.getValueAtPercentile(percentile);
+			assertTrue(reported >= exact && reported <= exact * 1.016,
+					"p" + percentile + " was " + reported + ", expected about " + exact);
+		}
+		assertEquals(1_000_000, histogram.getValueAtPercentile(100));
+	}
+
+	@Test
+	public void testAddMatchesRecordingEverything() {
+		Histogram all = new Histogram();
+		Histogram first = new Histogram();
+		Histogram second = new Histogram();
+		for (long value = 0; value < 5000; value++) {
+			long sample = value * value;
+			all.record(sample);
+			(value % 2 == 0 ? first : second).record(sample);
+		}
+		first.add(second);
+		assertEquals(all.getCount(), first.getCount());
+		assertEquals(all.getTotal(), first.getTotal());
+		assertEquals(all.getMin(), first.getMin());
+		assertEquals(all.getMax(), first.getMax());
+		for (double percentile : new double[] { 1, 25, 50, 75, 99 }) {
+			assertEquals(all.getValueAtPercentile(percentile), first.getValueAtPercentile(percentile));
+		}
+	}
+
+	@Test
+	public void testEmptyAndNegative() {
+		Histogram histogram = new Histogram();
+		assertEquals(0, histogram.getValueAtPercentile(50));
+		assertEquals(0, histogram.getMin());
+		assertTrue(Double.isNaN(histogram.getMean()));
+
+		histogram.record(-5);
+		assertEquals(0, histogram.getMax());
+		assertEquals(0, histogram.getValueAtPercentile(50));
+	}
+}
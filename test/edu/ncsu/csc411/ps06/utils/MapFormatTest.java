@@ -0,0 +1,97 @@
+package edu.ncsu.csc411.ps06.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.Test;
+
+import edu.ncsu.csc411.ps06.environment.MapTemplate;
+
+/**
+ * Round-trips maps through the text and binary formats and checks that
+ * every cell comes back as it went in.
+ */
+public class MapFormatTest {
+	private static final MapTemplate GENERATED = new MapGenerator(40, 60, 11).withDoors(4).generate();
+
+	@Test
+	public void testTextRoundTrip() throws IOException {
+		Path file = Files.createTempFile("map", ".txt");
+		try {
+			try (Writer out = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+				new MapGenerator(40, 60, 11).withDoors(4).writeText(out);
+			}
+			assertSameMap(GENERATED, TextMapFormat.read(file));
+			assertSameMap(GENERATED, MapTemplate.parse(MapManager.loadMap(file.toString())));
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void testTextReaderMatchesLoadMap() throws IOException {
+		for (int map = 1; map <= 10; map++) {
+			String filename = String.format("maps/public/map%02d.txt", map);
+			assertSameMap(MapTemplate.parse(MapManager.loadMap(filename)), TextMapFormat.read(Paths.get(filename)));
+		}
+	}
+
+	@Test
+	public void testBinaryRoundTrip() throws IOException {
+		Path raw = Files.createTempFile("map", ".bin");
+		Path rle = Files.createTempFile("map", ".bin");
+		try {
+			BinaryMapFormat.write(GENERATED, raw, false);
+			BinaryMapFormat.write(GENERATED, rle, true);
+			assertSameMap(GENERATED, BinaryMapFormat.read(raw));
+			assertSameMap(GENERATED, BinaryMapFormat.read(rle));
+			assertTrue(Files.size(rle) < Files.size(raw), "run-length encoding did not shrink the map");
+		} finally {
+			Files.delete(raw);
+			Files.delete(rle);
+		}
+	}
+
+	@Test
+	public void testBinaryRoundTripOfLongRuns() throws IOException {
+		// Runs longer than 127 cells need more than one varint byte
+		MapTemplate blank = MapTemplate.blank(300, 400);
+		Path rle = Files.createTempFile("map", ".bin");
+		try {
+			BinaryMapFormat.write(blank, rle, true);
+			assertSameMap(blank, BinaryMapFormat.read(rle));
+		} finally {
+			Files.delete(rle);
+		}
+	}
+
+	@Test
+	public void testRaggedMapsAreRejected() throws IOException {
+		assertThrows(IllegalArgumentException.class,
+				() -> MapTemplate.parse(new String[][] { { "WL", "WL" }, { "WL" } }));
+
+		Path file = Files.createTempFile("map", ".txt");
+		try {
+			Files.write(file, "WL WL\r\nWL WL WL\r\n".getBytes(StandardCharsets.US_ASCII));
+			assertThrows(IllegalArgumentException.class, () -> TextMapFormat.read(file));
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	private static void assertSameMap(MapTemplate expected, MapTemplate actual) {
+		assertEquals(expected.getRows(), actual.getRows(), "rows");
+		assertEquals(expected.getCols(), actual.getCols(), "cols");
+		for (int cell = 0; cell < expected.getRows() * expected.getCols(); cell++) {
+			assertEquals(expected.getCode(cell), actual.getCode(cell), "cell " + cell);
+		}
+	}
+}
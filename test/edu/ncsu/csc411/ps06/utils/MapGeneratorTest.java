@@ -0,0 +1,52 @@
+package edu.ncsu.csc411.ps06.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import edu.ncsu.csc411.ps06.agent.PuzzleSolver;
+import edu.ncsu.csc411.ps06.environment.Action;
+import edu.ncsu.csc411.ps06.environment.Environment;
+import edu.ncsu.csc411.ps06.environment.MapTemplate;
+
+/**
+ * Checks that generated maps can be solved, and that a seed always gives
+ * the same map.
+ */
+public class MapGeneratorTest {
+	@Test
+	public void testGeneratedMapsAreSolvable() {
+		for (long seed = 1; seed <= 8; seed++) {
+			MapTemplate template = new MapGenerator(30, 30, seed).withDoors(3).withChips(8).generate();
+			Environment env = new Environment(template);
+			assertEquals(1, template.getStartCount(), "robots");
+
+			List<Action> plan = new PuzzleSolver(env).solve(template.getStartCell(0));
+			assertNotNull(plan, "no solution for seed " + seed);
+			assertTrue(!plan.isEmpty(), "empty solution for seed " + seed);
+		}
+	}
+
+	@Test
+	public void testSameSeedGivesSameMap() {
+		MapTemplate first = new MapGenerator(50, 70, 42).generate();
+		MapTemplate second = new MapGenerator(50, 70, 42).generate();
+		MapTemplate other = new MapGenerator(50, 70, 43).generate();
+		boolean differs = false;
+		for (int cell = 0; cell < 50 * 70; cell++) {
+			assertEquals(first.getCode(cell), second.getCode(cell), "cell " + cell);
+			differs |= first.getCode(cell) != other.getCode(cell);
+		}
+		assertTrue(differs, "seeds 42 and 43 gave the same map");
+	}
+
+	@Test
+	public void testTooSmallIsRejected() {
+		assertThrows(IllegalArgumentException.class, () -> new MapGenerator(4, 10, 1));
+	}
+}